@@ -0,0 +1,97 @@
+package pepse;
+
+import danogl.collisions.GameObjectCollection;
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.KeyInput;
+import pepse.world.Avatar;
+import pepse.world.ChunkManager;
+import pepse.world.Crowd;
+import pepse.world.Terrain;
+import pepse.world.trees.Tree;
+
+import java.awt.*;
+
+/**
+ * A headless simulator world for benchmarks, exposing the parts of PepseGameManager that benchmarks measure.
+ * The engine is initialized with the headless stand-ins of HeadlessEngine. The results quoted with the benchmarks so
+ * far were measured against a minimal stand-in of the engine, not DanoGameLab, so they compare changes to the game's
+ * own code relative to each other but are not representative of the real engine.
+ */
+public class BenchmarkWorld {
+
+    /**
+     * The duration of a single frame at the game's target frame rate.
+     */
+    public static final float FRAME_TIME = 1f / 80;
+
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final Renderable STAND_IN_IMAGE = new RectangleRenderable(Color.MAGENTA);
+
+    private final PepseGameManager game = new PepseGameManager();
+
+    /**
+     * A constructor for a new BenchmarkWorld instance.
+     * @param seed     - The seed of the world.
+     * @param keyInput - The keyboard state the avatar reacts to.
+     */
+    public BenchmarkWorld(int seed, KeyInput keyInput) {
+        this(seed, keyInput, WINDOW_DIMENSIONS);
+    }
+
+    /**
+     * A constructor for a new BenchmarkWorld instance, created for a window of the given dimensions.
+     * @param seed             - The seed of the world.
+     * @param keyInput         - The keyboard state the avatar reacts to.
+     * @param windowDimensions - The dimensions of the synthetic window.
+     */
+    public BenchmarkWorld(int seed, KeyInput keyInput, Vector2 windowDimensions) {
+        game.initializeHeadless(windowDimensions, keyInput, (path, useTransparency) -> STAND_IN_IMAGE, seed);
+    }
+
+    /**
+     * This method runs a single frame of the game.
+     * @param deltaTime - The duration of the frame.
+     */
+    public void update(float deltaTime) {
+        game.update(deltaTime);
+    }
+
+    public GameObjectCollection gameObjects() {
+        return game.gameObjects();
+    }
+
+    public Terrain terrain() {
+        return game.getTerrain();
+    }
+
+    public Tree tree() {
+        return game.getTree();
+    }
+
+    public Avatar avatar() {
+        return game.getAvatar();
+    }
+
+    public ChunkManager chunkManager() {
+        return game.getChunkManager();
+    }
+
+    /**
+     * This method adds a crowd stress scene to the world.
+     * @param agents - The number of agents of the crowd.
+     * @return The crowd.
+     */
+    public Crowd addCrowd(int agents) {
+        game.createCrowd(agents);
+        return game.getCrowd();
+    }
+
+    /**
+     * This method stops the background threads of the world.
+     */
+    public void shutdown() {
+        game.getChunkManager().shutdown();
+    }
+}
@@ -0,0 +1,22 @@
+package pepse.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark suite with the GC profiler, so every result is reported with its allocation rate.
+ * Usage: BenchmarkRunner [regex of benchmarks to run]
+ */
+public class BenchmarkRunner {
+
+    private static final String ALL_BENCHMARKS = "pepse\\.benchmarks\\..*";
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ALL_BENCHMARKS)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,12 @@
+package pepse.benchmarks;
+
+/**
+ * The fixed world seed every benchmark uses, so that runs before and after a change measure the same world.
+ */
+final class BenchmarkSeeds {
+
+    static final int SEED = 42;
+
+    private BenchmarkSeeds() {
+    }
+}
@@ -0,0 +1,51 @@
+package pepse.benchmarks;
+
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.*;
+import pepse.BenchmarkWorld;
+import pepse.world.ChunkManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a frame of PepseGameManager.update in which the avatar crosses a chunk border, so one chunk is loaded
+ * and one is unloaded. The avatar is moved a whole chunk before every frame, back and forth within a fixed span of
+ * chunks, so its x-value never grows and float precision stays the same throughout a run. (Wrapping around would make
+ * one frame per span jump back over the whole span and reload the whole window.)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BorderCrossingBenchmark {
+
+    private static final int SPAN_CHUNKS = 100;
+
+    private BenchmarkWorld world;
+    private float startX;
+    private float avatarY;
+    private int step;
+
+    @Setup
+    public void setUp() {
+        world = new BenchmarkWorld(BenchmarkSeeds.SEED, keyCode -> false);
+        startX = world.avatar().getCenter().x();
+        avatarY = world.avatar().getCenter().y();
+        step = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public void crossChunkBorder() {
+        step = (step + 1) % (2 * SPAN_CHUNKS);
+        int chunks = step < SPAN_CHUNKS ? step : 2 * SPAN_CHUNKS - step;
+        world.avatar().setCenter(new Vector2(startX + chunks * ChunkManager.CHUNK_WIDTH, avatarY));
+        world.update(BenchmarkWorld.FRAME_TIME);
+    }
+}
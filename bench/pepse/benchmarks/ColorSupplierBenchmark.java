@@ -0,0 +1,35 @@
+package pepse.benchmarks;
+
+import danogl.gui.rendering.Renderable;
+import org.openjdk.jmh.annotations.*;
+import pepse.util.ColorPalette;
+import pepse.util.ColorSupplier;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sampling a color around a base color, directly and through the shared palette.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ColorSupplierBenchmark {
+
+    private static final Color BASE_COLOR = new Color(212, 123, 74);
+
+    private final ColorPalette palette = ColorPalette.of(BASE_COLOR);
+
+    @Benchmark
+    public Color approximateColor() {
+        return ColorSupplier.approximateColor(BASE_COLOR);
+    }
+
+    @Benchmark
+    public Renderable paletteRenderable() {
+        return palette.randomRenderable();
+    }
+}
@@ -0,0 +1,47 @@
+package pepse.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pepse.BenchmarkWorld;
+import pepse.world.Crowd;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the crowd stress scene scales: the batched update of a crowd alone, and a steady-state frame of the
+ * whole game with the crowd, for a given number of agents wandering around the avatar.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CrowdBenchmark {
+
+    @Param({"100", "500", "2000"})
+    public int agents;
+
+    private BenchmarkWorld world;
+    private Crowd crowd;
+
+    @Setup
+    public void setUp() {
+        world = new BenchmarkWorld(BenchmarkSeeds.SEED, keyCode -> false);
+        crowd = world.addCrowd(agents);
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public void crowdUpdate() {
+        crowd.update(BenchmarkWorld.FRAME_TIME);
+    }
+
+    @Benchmark
+    public void frame() {
+        world.update(BenchmarkWorld.FRAME_TIME);
+    }
+}
@@ -0,0 +1,89 @@
+package pepse.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pepse.BenchmarkWorld;
+import pepse.world.Block;
+import pepse.world.ChunkData;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a steady-state frame of the whole game while the avatar stands still, with a given number of extra trees.
+ * Every tree stands in a column of its own. Near trees take the free columns closest to the camera, alternating to
+ * either side, so the first ones are within the live crown radius and their crowns are live leaves that sway, fall
+ * and return to their trees. The radius holds a few dozen columns, so beyond that the near trees have sprite crowns.
+ * Columns that already hold a streamed tree are skipped, so the streamed world is left as it is. Far trees are
+ * planted TREE_SPACING apart, far from the loaded window, so their crowns stay sprites and world streaming never
+ * removes them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FrameBenchmark {
+
+    private static final int FAR_AWAY_X = 1_000_000;
+    private static final int TREE_SPACING = 5 * Block.SIZE;
+    private static final int TREE_HEIGHT = 10;
+    private static final int GROUND_HEIGHT = 480;
+
+    @Param({"10", "100", "500"})
+    public int trees;
+
+    @Param({"near", "far"})
+    public String placement;
+
+    private BenchmarkWorld world;
+
+    @Setup
+    public void setUp() {
+        world = new BenchmarkWorld(BenchmarkSeeds.SEED, keyCode -> false);
+        if ("near".equals(placement)) {
+            plantNearCamera();
+        } else {
+            int firstX = Math.floorDiv(FAR_AWAY_X, Block.SIZE) * Block.SIZE;
+            for (int i = 0; i < trees; i++) {
+                plant(firstX + i * TREE_SPACING, GROUND_HEIGHT);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public void frame() {
+        world.update(BenchmarkWorld.FRAME_TIME);
+    }
+
+    /*
+    Plants the trees in the free columns closest to the camera: the camera's column, then one to the right, one to
+    the left, two to the right and so on.
+     */
+    private void plantNearCamera() {
+        int centerColumn = Math.floorDiv((int) world.avatar().getCenter().x(), Block.SIZE);
+        int planted = 0;
+        for (int step = 0; planted < trees; step++) {
+            int column = centerColumn + (step % 2 == 0 ? step / 2 : -(step + 1) / 2);
+            int x = column * Block.SIZE;
+            if (!world.tree().getRegistry().contains(x)) {
+                plant(x, (int) world.terrain().groundHeightAt(x));
+                planted++;
+            }
+        }
+    }
+
+    /*
+    Plants a single tree in the column at the given x-value.
+     */
+    private void plant(int x, int groundHeight) {
+        ChunkData tree = new ChunkData(x, 1);
+        tree.setGroundHeight(0, groundHeight);
+        tree.setTreeHeight(0, TREE_HEIGHT);
+        world.tree().createFromData(tree);
+    }
+}
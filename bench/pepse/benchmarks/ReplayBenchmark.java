@@ -0,0 +1,47 @@
+package pepse.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pepse.BenchmarkWorld;
+import pepse.util.InputReplayer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded input trace headlessly, from world creation to the last tick, so a whole recorded run (e.g. a
+ * long flight) can be compared before and after a change. The trace is given with -Dpepse.replay=<file> (the forked
+ * JVM inherits it from the runner), and its seed, window dimensions and recorded properties decide the world.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ReplayBenchmark {
+
+    private static final String REPLAY_PROPERTY = "pepse.replay";
+
+    private InputReplayer replayer;
+    private BenchmarkWorld world;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        replayer = InputReplayer.load(Paths.get(System.getProperty(REPLAY_PROPERTY)));
+        replayer.applyProperties();
+        world = new BenchmarkWorld(replayer.seed(), replayer, replayer.windowDimensions());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public void replay() {
+        while (replayer.advance()) {
+            world.update(replayer.tickLength());
+        }
+    }
+}
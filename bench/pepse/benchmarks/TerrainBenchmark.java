@@ -0,0 +1,72 @@
+package pepse.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pepse.BenchmarkWorld;
+import pepse.world.Block;
+import pepse.world.ChunkManager;
+import pepse.world.Terrain;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures terrain generation: a single column created and removed again, and ground height evaluation.
+ * Columns are created far from the loaded window so they never interact with world streaming. The x-value wraps
+ * around within a fixed span, so it never overflows and float precision stays the same throughout a run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TerrainBenchmark {
+
+    private static final int FAR_AWAY_X = 1_000_000;
+    private static final int SPAN = 100 * ChunkManager.CHUNK_WIDTH;
+
+    private BenchmarkWorld world;
+    private Terrain terrain;
+    private float[] chunkHeights;
+    private int x;
+
+    @Setup
+    public void setUp() {
+        world = new BenchmarkWorld(BenchmarkSeeds.SEED, keyCode -> false);
+        terrain = world.terrain();
+        chunkHeights = new float[ChunkManager.CHUNK_COLUMNS];
+        x = FAR_AWAY_X;
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public void createInRangePerColumn() {
+        terrain.createInRange(x, x + Block.SIZE);
+        terrain.deleteInRange(x, x + Block.SIZE);
+        advance(Block.SIZE);
+    }
+
+    @Benchmark
+    public float groundHeightAt() {
+        advance(Block.SIZE);
+        return terrain.groundHeightAt(x);
+    }
+
+    @Benchmark
+    public void groundHeightsInRangePerChunk(Blackhole blackhole) {
+        advance(ChunkManager.CHUNK_WIDTH);
+        terrain.groundHeightsInRange(x, chunkHeights, chunkHeights.length);
+        blackhole.consume(chunkHeights);
+    }
+
+    /*
+    Moves x forward by the given step, wrapping around within the span.
+     */
+    private void advance(int step) {
+        x = FAR_AWAY_X + (x - FAR_AWAY_X + step) % SPAN;
+    }
+}
@@ -0,0 +1,90 @@
+package pepse.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pepse.BenchmarkWorld;
+import pepse.world.Block;
+import pepse.world.ChunkData;
+import pepse.world.ChunkManager;
+import pepse.world.trees.Tree;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures tree generation: a whole chunk of trees, a single tree built (stump and crown) and removed again, and a
+ * prepared chunk with a tree in every column against the same chunk without trees - their difference divided by
+ * the number of columns is the cost of a single tree. The x-value of the generated chunks wraps around within a
+ * fixed span, so it never overflows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TreeBenchmark {
+
+    private static final int FAR_AWAY_X = 1_000_000;
+    private static final int SPAN = 100 * ChunkManager.CHUNK_WIDTH;
+    private static final int TREE_HEIGHT = 10;
+    private static final int GROUND_HEIGHT = 480;
+
+    private BenchmarkWorld world;
+    private Tree tree;
+    private ChunkData singleTree;
+    private ChunkData fullChunk;
+    private ChunkData emptyChunk;
+    private int x;
+
+    @Setup
+    public void setUp() {
+        world = new BenchmarkWorld(BenchmarkSeeds.SEED, keyCode -> false);
+        tree = world.tree();
+        x = FAR_AWAY_X;
+        singleTree = plantedChunk(1, TREE_HEIGHT);
+        fullChunk = plantedChunk(ChunkManager.CHUNK_COLUMNS, TREE_HEIGHT);
+        emptyChunk = plantedChunk(ChunkManager.CHUNK_COLUMNS, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public void createInRangePerChunk() {
+        tree.createInRange(x, x + ChunkManager.CHUNK_WIDTH);
+        tree.deleteInRange(x, x + ChunkManager.CHUNK_WIDTH);
+        x = FAR_AWAY_X + (x - FAR_AWAY_X + ChunkManager.CHUNK_WIDTH) % SPAN;
+    }
+
+    @Benchmark
+    public void buildTree() {
+        tree.createFromData(singleTree);
+        tree.deleteInRange(FAR_AWAY_X, FAR_AWAY_X + Block.SIZE);
+    }
+
+    @Benchmark
+    public void fullChunk() {
+        tree.createFromData(fullChunk);
+        tree.deleteInRange(FAR_AWAY_X, FAR_AWAY_X + ChunkManager.CHUNK_WIDTH);
+    }
+
+    @Benchmark
+    public void emptyChunk() {
+        tree.createFromData(emptyChunk);
+        tree.deleteInRange(FAR_AWAY_X, FAR_AWAY_X + ChunkManager.CHUNK_WIDTH);
+    }
+
+    /*
+    Prepares a description of the given number of columns far away, with a tree of the given height (or none, for 0)
+    in every column.
+     */
+    private static ChunkData plantedChunk(int columns, int treeHeight) {
+        ChunkData data = new ChunkData(FAR_AWAY_X, columns);
+        for (int c = 0; c < columns; c++) {
+            data.setGroundHeight(c, GROUND_HEIGHT);
+            data.setTreeHeight(c, treeHeight);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,110 @@
+package pepse;
+
+import danogl.gui.UserInputListener;
+import danogl.gui.WindowController;
+import danogl.util.Vector2;
+import pepse.util.KeyInput;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Stand-ins for the parts of the engine that normally come from a window, so GameManager.initializeGame can run
+ * without a display. They are proxies that answer the few queries the game makes and give a neutral value to every
+ * other call: false or 0 for primitives, another neutral stand-in for interfaces (so a chained call does not meet a
+ * null), and null for anything else, so they do not depend on the rest of the engine's interfaces.
+ * Note that headless runs were only exercised against a minimal stand-in of the engine, not against DanoGameLab
+ * itself, so whether the real GameManager.initializeGame, ImageReader and SoundReader accept these proxies is
+ * unverified, and timings measured headlessly are not representative of the real engine.
+ */
+final class HeadlessEngine {
+
+    private static final String WINDOW_DIMENSIONS_METHOD = "getWindowDimensions";
+    private static final String KEY_PRESSED_METHOD = "isKeyPressed";
+
+    private HeadlessEngine() {
+    }
+
+    /**
+     * @param windowDimensions - The dimensions of the synthetic window.
+     * @return A window controller with the given dimensions that ignores every request (e.g. to close the window).
+     */
+    static WindowController windowController(Vector2 windowDimensions) {
+        return proxy(WindowController.class, (name, args) ->
+                WINDOW_DIMENSIONS_METHOD.equals(name) ? windowDimensions : null);
+    }
+
+    /**
+     * @param keyInput - The keyboard state to report.
+     * @return An input listener that reports the given keyboard state, and no mouse input.
+     */
+    static UserInputListener inputListener(KeyInput keyInput) {
+        return proxy(UserInputListener.class, (name, args) ->
+                KEY_PRESSED_METHOD.equals(name) ? (Object) keyInput.isKeyPressed((Integer) args[0]) : null);
+    }
+
+    /*
+    The answer of a stand-in to a call, or null to give the neutral value of the method's return type.
+     */
+    @FunctionalInterface
+    private interface Answer {
+        Object answer(String methodName, Object[] args);
+    }
+
+    /*
+    Creates a proxy of the given interface that answers by the given function.
+     */
+    private static <T> T proxy(Class<T> type, Answer answer) {
+        Object instance = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return objectMethod(proxy, method.getName(), args);
+                    }
+                    Object result = answer.answer(method.getName(), args);
+                    return result != null ? result : neutralValue(method.getReturnType());
+                });
+        return type.cast(instance);
+    }
+
+    /*
+    Answers the methods every object has, by identity.
+     */
+    private static Object objectMethod(Object proxy, String name, Object[] args) {
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "headless " + proxy.getClass().getInterfaces()[0].getSimpleName();
+        }
+    }
+
+    /*
+    Returns the neutral value of a return type: false or 0 for primitives, a stand-in that answers every call with a
+    neutral value for interfaces, and null otherwise.
+     */
+    private static Object neutralValue(Class<?> type) {
+        if (type.isInterface()) {
+            return proxy(type, (name, args) -> null);
+        }
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return type == int.class ? (Object) 0 : type == short.class ? (Object) (short) 0 : (Object) (byte) 0;
+    }
+}
@@ -0,0 +1,61 @@
+package pepse;
+
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.ScriptedInput;
+import pepse.world.ChunkManager;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+
+/**
+ * Runs the simulator without a window: the same terrain, tree, avatar and day/night logic is driven at an uncapped
+ * tick rate by a scripted input, with stand-in images and no rendering. Prints the tick rate and the world
+ * generation throughput, so world streaming can be profiled on a machine without a display.
+ * Usage: HeadlessSimulation [ticks] [seed]
+ */
+public class HeadlessSimulation {
+
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    private static final float TICK_DURATION = 1f / 80;
+    private static final int DEFAULT_TICKS = 20000;
+    private static final int DEFAULT_SEED = 42;
+    private static final Renderable STAND_IN_IMAGE = new RectangleRenderable(Color.MAGENTA);
+    private static final double NANOS_IN_SECOND = 1e9;
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TICKS;
+        int seed = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SEED;
+        ScriptedInput input = defaultScript();
+        PepseGameManager game = new PepseGameManager();
+        game.initializeHeadless(WINDOW_DIMENSIONS, input, (path, useTransparency) -> STAND_IN_IMAGE, seed);
+        ChunkManager chunkManager = game.getChunkManager();
+        long chunksBefore = chunkManager.chunksLoaded();
+        float startX = game.getAvatar().getCenter().x();
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            input.advance();
+            game.update(TICK_DURATION);
+        }
+        double seconds = (System.nanoTime() - start) / NANOS_IN_SECOND;
+        long chunks = chunkManager.chunksLoaded() - chunksBefore;
+        chunkManager.shutdown();
+        System.out.printf("ticks: %d in %.3fs (%.1f ticks/s, %.1fx real time)%n",
+                ticks, seconds, ticks / seconds, ticks * TICK_DURATION / seconds);
+        System.out.printf("chunks loaded: %d (%.1f chunks/s, %.1f columns/s)%n",
+                chunks, chunks / seconds, chunks * ChunkManager.CHUNK_COLUMNS / seconds);
+        System.out.printf("avatar traveled: %.0f pixels%n", game.getAvatar().getCenter().x() - startX);
+    }
+
+    /*
+    Walks right, flies right, stands, and walks back a little - so both streaming directions are exercised.
+     */
+    private static ScriptedInput defaultScript() {
+        return new ScriptedInput()
+                .addStep(800, KeyEvent.VK_RIGHT)
+                .addStep(160, KeyEvent.VK_RIGHT, KeyEvent.VK_SPACE, KeyEvent.VK_SHIFT)
+                .addStep(80)
+                .addStep(240, KeyEvent.VK_LEFT);
+    }
+}
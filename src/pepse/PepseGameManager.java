@@ -9,13 +9,26 @@ import danogl.gui.UserInputListener;
 import danogl.gui.WindowController;
 import danogl.gui.rendering.Camera;
 import danogl.util.Vector2;
+import pepse.util.GradientNoise;
+import pepse.util.ImageSource;
+import pepse.util.InputRecorder;
+import pepse.util.InputReplayer;
+import pepse.util.KeyInput;
+import pepse.util.Metrics;
+import pepse.util.Stage;
+import pepse.util.TimingWheel;
+import pepse.util.WorldRandom;
 import pepse.world.*;
+import pepse.world.daynight.DayNightClock;
 import pepse.world.daynight.Night;
 import pepse.world.daynight.Sun;
 import pepse.world.daynight.SunHalo;
+import pepse.world.trees.Foliage;
 import pepse.world.trees.Tree;
 
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Random;
 
 /**
@@ -23,16 +36,36 @@ import java.util.Random;
  */
 public class PepseGameManager extends GameManager {
 
+    private static final String WINDOW_TITLE = "Pepse";
     private static final Color HALO_COLOR = new Color(255, 255, 0, 20);
     private static final int LOWER_TERRAIN_LAYER = Layer.STATIC_OBJECTS;
-    private static final int UPPER_TERRAIN_LAYER = Layer.STATIC_OBJECTS + 5;
     private static final int STUMP_LAYER = Layer.STATIC_OBJECTS + 10;
     private static final int LEAF_LAYER = Layer.STATIC_OBJECTS + 20;
     private static final int SUN_HALO_LAYER = Layer.BACKGROUND + 10;
+    private static final int CROWD_LAYER = Layer.DEFAULT + 10; // collides with nothing
     private static final int RADIUS_FACTOR = 180;
     private static final float DAY_LENGTH = 30f;
     private static final int RANDOM_SEED_BOUND = 100;
     private static final float HALF_VALUE_FACTOR = 0.5f;
+    private static final float SCHEDULER_TICK = 1f / 64;
+    private static final int TARGET_FRAMERATE = 80;
+    private static final float RECORDED_TICK = 1f / TARGET_FRAMERATE; // the fixed timestep of recorded runs
+    private static final float FULL_DETAIL_MARGIN = 2 * Block.SIZE; // beyond the window edge, for wide objects
+    private static final String NOISE_PROPERTY = "pepse.noise"; // set to "gradient" for multi-octave terrain
+    private static final String GRADIENT_NOISE = "gradient";
+    private static final String LIVE_CROWN_RADIUS_PROPERTY = "pepse.liveCrownRadius";
+    private static final int DEFAULT_LIVE_CROWN_RADIUS = 400; // pixels from the camera with live swaying leaves
+    private static final String CHUNK_STORE_PROPERTY = "pepse.chunkStore"; // a directory to keep chunks in
+    private static final String SINE_NOISE = "sine";
+    private static final String FOLIAGE_PROPERTY = "pepse.foliage"; // set to true to draw leaves as one object
+    private static final String CROWD_PROPERTY = "pepse.crowd"; // the number of agents of a crowd stress scene
+    private static final String RECORD_PROPERTY = "pepse.record"; // a file to record the input trace of the run to
+    private static final String REPLAY_PROPERTY = "pepse.replay"; // a recorded input trace to replay
+    private static final String[] WORLD_PROPERTIES = {NOISE_PROPERTY, FOLIAGE_PROPERTY, CROWD_PROPERTY,
+            LIVE_CROWN_RADIUS_PROPERTY}; // kept in input traces, so replays build the same world
+    private static final float GRADIENT_NOISE_FREQUENCY = 1f / 600;
+    private static final int GRADIENT_NOISE_OCTAVES = 4;
+    private static final float GRADIENT_NOISE_PERSISTENCE = 0.5f;
 
 
 
@@ -46,10 +79,33 @@ public class PepseGameManager extends GameManager {
     private Terrain terrain;
     private Tree tree;
     private Avatar avatar;
-    private int leftRenderBorder;
-    private int rightRenderBorder;
+    private ChunkManager chunkManager;
+    private TimingWheel scheduler;
+    private GroundContact groundContact;
+    private LevelOfDetail levelOfDetail;
+    private DayNightClock dayNightClock;
+    private AvatarSprites avatarSprites;
+    private Crowd crowd;
+    private InputRecorder inputRecorder;
+    private InputReplayer inputReplayer;
     private int halfWindowX;
 
+    /**
+     * A constructor for a game in a window of the default size.
+     */
+    public PepseGameManager() {
+        super();
+    }
+
+    /**
+     * A constructor for a game that replays a recorded input trace, in a window of the recorded size.
+     * @param inputReplayer - The loaded trace.
+     */
+    public PepseGameManager(InputReplayer inputReplayer) {
+        super(WINDOW_TITLE, inputReplayer.windowDimensions());
+        this.inputReplayer = inputReplayer;
+    }
+
     @Override
     public void initializeGame(ImageReader imageReader, SoundReader soundReader, UserInputListener inputListener, WindowController windowController) {
         super.initializeGame(imageReader, soundReader, inputListener, windowController);
@@ -57,58 +113,187 @@ public class PepseGameManager extends GameManager {
         this.soundReader = soundReader;
         this.inputListener = inputListener;
         this.windowController = windowController;
-        this.windowDimensions = windowController.getWindowDimensions();
-        windowController.setTargetFramerate(80);
-        seed = new Random().nextInt(RANDOM_SEED_BOUND);
+        windowController.setTargetFramerate(TARGET_FRAMERATE);
+        KeyInput keyInput = inputListener::isKeyPressed;
+        int seed = new Random().nextInt(RANDOM_SEED_BOUND);
+        String recordFile = System.getProperty(RECORD_PROPERTY);
+        if (inputReplayer != null) {
+            try {
+                Vector2 recorded = inputReplayer.windowDimensions();
+                Vector2 actual = windowController.getWindowDimensions();
+                if (recorded.x() != actual.x() || recorded.y() != actual.y()) {
+                    throw new IOException("the trace was recorded in a window of " + recorded + ", not " + actual);
+                }
+                inputReplayer.applyProperties();
+                seed = inputReplayer.seed();
+                keyInput = inputReplayer;
+            } catch (IOException e) {
+                System.err.println("Replay disabled: " + e.getMessage());
+                inputReplayer = null;
+            }
+        } else if (recordFile != null) {
+            inputRecorder = new InputRecorder(keyInput, Paths.get(recordFile), seed, RECORDED_TICK,
+                    windowController.getWindowDimensions(), WORLD_PROPERTIES);
+            keyInput = inputRecorder;
+        }
+        createWorld(windowController.getWindowDimensions(), keyInput, imageReader::readImage, seed);
+        setCamera(new Camera(avatar,
+                windowController.getWindowDimensions().mult(0.5f).add(avatar.getTopLeftCorner().mult(-1)),
+                windowController.getWindowDimensions(),
+                windowController.getWindowDimensions()));
+    }
+
+    /**
+     * Initializes the game without a window: the engine is initialized with stand-ins of the window, image and sound
+     * readers and input listener (so the game object collection exists), and then the world is created with the given
+     * input and images. There is no camera and nothing is rendered.
+     * @param windowDimensions - The dimensions of the synthetic window.
+     * @param keyInput - The source of the keyboard state the avatar reacts to.
+     * @param imageSource - The source of the avatar's images.
+     * @param seed - The seed of the world.
+     */
+    void initializeHeadless(Vector2 windowDimensions, KeyInput keyInput, ImageSource imageSource, int seed) {
+        WindowController headlessWindow = HeadlessEngine.windowController(windowDimensions);
+        super.initializeGame(new ImageReader(headlessWindow), new SoundReader(headlessWindow),
+                HeadlessEngine.inputListener(keyInput), headlessWindow);
+        windowController = headlessWindow;
+        createWorld(windowDimensions, keyInput, imageSource, seed);
+    }
+
+    /*
+     * Creates the whole simulated world: sky, day/night, terrain, trees and the avatar. The engine must be
+     * initialized first, since the world is added to its game object collection.
+     */
+    private void createWorld(Vector2 windowDimensions, KeyInput keyInput, ImageSource imageSource, int seed) {
+        this.windowDimensions = windowDimensions;
+        this.seed = seed;
         random = new Random(seed);
+        scheduler = new TimingWheel(SCHEDULER_TICK);
         createSky();
-        leftRenderBorder = -RADIUS_FACTOR;
-        rightRenderBorder = (int) Math.floor(windowDimensions.x() / Block.SIZE) * Block.SIZE + RADIUS_FACTOR;
         halfWindowX = (int) Math.floor(windowDimensions.x() / (2 * Block.SIZE)) * Block.SIZE;
-        createNightMode();
-        createSunAndSunHalo();
+        createDayNightCycle();
         createTerrain();
+        groundContact = new GroundContact(terrain.getHeightCache());
+        levelOfDetail = new LevelOfDetail(halfWindowX + FULL_DETAIL_MARGIN,
+                halfWindowX + RADIUS_FACTOR * HALF_VALUE_FACTOR);
+        levelOfDetail.setCenter(windowDimensions.x() * HALF_VALUE_FACTOR);
         createTree();
-        createAvatar(imageReader, inputListener, windowController);
+        createChunkManager();
+        createAvatar(imageSource, keyInput);
         setLayersCollision();
+        int crowdAgents = Integer.getInteger(CROWD_PROPERTY, 0);
+        if (crowdAgents > 0) {
+            createCrowd(crowdAgents);
+        }
+    }
 
+    /**
+     * Creates a crowd stress scene: the given number of autonomous agents that wander around the avatar's starting
+     * point, drawn with the avatar's images.
+     * @param agents - The number of agents.
+     */
+    void createCrowd(int agents) {
+        crowd = new Crowd(agents, windowDimensions.x() * HALF_VALUE_FACTOR, halfWindowX, avatarSprites,
+                groundContact, levelOfDetail, new WorldRandom(seed));
+        gameObjects().addGameObject(crowd, CROWD_LAYER);
     }
 
-    private void setLayersCollision(){
-        gameObjects().layers().shouldLayersCollide(UPPER_TERRAIN_LAYER, LEAF_LAYER, true);
-        gameObjects().layers().shouldLayersCollide(UPPER_TERRAIN_LAYER, Layer.DEFAULT, true);
-        gameObjects().layers().shouldLayersCollide(STUMP_LAYER, Layer.DEFAULT, true);
+    /**
+     * @return The crowd of the stress scene, or null if there is none.
+     */
+    Crowd getCrowd() {
+        return crowd;
+    }
+
+    /**
+     * @return The chunk manager of the world, for inspecting its statistics.
+     */
+    ChunkManager getChunkManager() {
+        return chunkManager;
+    }
+
+    /**
+     * @return The clock of the day/night cycle, for scaling and seeking the time of day.
+     */
+    DayNightClock getDayNightClock() {
+        return dayNightClock;
     }
 
-    private void createNightMode() {
-        Night.create(this.gameObjects(), Layer.FOREGROUND, windowDimensions, DAY_LENGTH);
+    /**
+     * @return The terrain of the world.
+     */
+    Terrain getTerrain() {
+        return terrain;
+    }
+
+    /**
+     * @return The trees of the world.
+     */
+    Tree getTree() {
+        return tree;
+    }
+
+    /**
+     * @return The avatar of the world.
+     */
+    Avatar getAvatar() {
+        return avatar;
+    }
+
+    private void setLayersCollision(){
+        gameObjects().layers().shouldLayersCollide(STUMP_LAYER, Layer.DEFAULT, true);
     }
 
-    private void createSunAndSunHalo() {
-        GameObject sun = Sun.create(this.gameObjects(), Layer.BACKGROUND, windowDimensions, DAY_LENGTH);
-        SunHalo.create(this.gameObjects(), SUN_HALO_LAYER, sun, HALO_COLOR);
+    /*
+     * Creates the night, the sun and its halo, and the single clock that drives all three.
+     */
+    private void createDayNightCycle() {
+        GameObject night = Night.create(this.gameObjects(), Layer.FOREGROUND, windowDimensions);
+        GameObject sun = Sun.create(this.gameObjects(), Layer.BACKGROUND, windowDimensions);
+        GameObject sunHalo = SunHalo.create(this.gameObjects(), SUN_HALO_LAYER, sun, HALO_COLOR);
+        dayNightClock = new DayNightClock(sun, sunHalo, night, windowDimensions, DAY_LENGTH);
     }
 
     private void createTree() {
-        tree = new Tree(this.gameObjects(), terrain::groundHeightAt, STUMP_LAYER, LEAF_LAYER, seed);
-        tree.createInRange(leftRenderBorder, rightRenderBorder);
+        Foliage foliage = null;
+        if (Boolean.getBoolean(FOLIAGE_PROPERTY)) {
+            foliage = new Foliage(groundContact, levelOfDetail, new WorldRandom(seed));
+            gameObjects().addGameObject(foliage, LEAF_LAYER);
+        }
+        tree = new Tree(this.gameObjects(), terrain::groundHeightAt, STUMP_LAYER, LEAF_LAYER, seed,
+                scheduler, groundContact, foliage,
+                Integer.getInteger(LIVE_CROWN_RADIUS_PROPERTY, DEFAULT_LIVE_CROWN_RADIUS), levelOfDetail);
     }
 
     private void createTerrain() {
-        terrain = new Terrain(this.gameObjects(), LOWER_TERRAIN_LAYER, windowDimensions, seed);
-        terrain.createInRange(leftRenderBorder, rightRenderBorder);
+        if (GRADIENT_NOISE.equals(System.getProperty(NOISE_PROPERTY))) {
+            terrain = new Terrain(this.gameObjects(), LOWER_TERRAIN_LAYER, windowDimensions, seed,
+                    new GradientNoise(seed, GRADIENT_NOISE_FREQUENCY, GRADIENT_NOISE_OCTAVES,
+                            GRADIENT_NOISE_PERSISTENCE));
+        } else {
+            terrain = new Terrain(this.gameObjects(), LOWER_TERRAIN_LAYER, windowDimensions, seed);
+        }
+    }
+
+    private void createChunkManager() {
+        ChunkStore store = null;
+        String storeDirectory = System.getProperty(CHUNK_STORE_PROPERTY);
+        if (storeDirectory != null) {
+            String worldName = GRADIENT_NOISE.equals(System.getProperty(NOISE_PROPERTY)) ? GRADIENT_NOISE : SINE_NOISE;
+            store = new ChunkStore(Paths.get(storeDirectory), seed, worldName, terrain.getBaseHeight());
+        }
+        chunkManager = new ChunkManager(terrain, tree, halfWindowX + RADIUS_FACTOR, store);
+        chunkManager.update(windowDimensions.x() * HALF_VALUE_FACTOR);
     }
 
-    private void createAvatar(ImageReader imageReader, UserInputListener inputListener, WindowController windowController) {
+    private void createAvatar(ImageSource imageSource, KeyInput keyInput) {
+        avatarSprites = new AvatarSprites(imageSource);
         avatar = Avatar.create(gameObjects(),
                 Layer.DEFAULT,
-                new Vector2(windowDimensions.x() * 0.5f, terrain.groundHeightAt(windowDimensions.x() * 0.5f) - 100),
-                inputListener, imageReader);
+                new Vector2(windowDimensions.x() * 0.5f,
+                        terrain.getHeightCache().heightAt(windowDimensions.x() * 0.5f) - 100),
+                keyInput, avatarSprites, groundContact);
         gameObjects().addGameObject(new NumericEnergyCounter(Vector2.ZERO, Vector2.ONES.mult(50),gameObjects(), avatar, Layer.BACKGROUND));
-        setCamera(new Camera(avatar,
-                windowController.getWindowDimensions().mult(0.5f).add(avatar.getTopLeftCorner().mult(-1)),
-                windowController.getWindowDimensions(),
-                windowController.getWindowDimensions()));
     }
 
 
@@ -121,40 +306,45 @@ public class PepseGameManager extends GameManager {
 
     @Override
     public void update(float deltaTime) {
-        super.update(deltaTime);
-        if (avatar.getCenter().x() + halfWindowX + RADIUS_FACTOR - rightRenderBorder > Block.SIZE ){
-            terrain.createInRange(rightRenderBorder, rightRenderBorder + Block.SIZE);
-            tree.createInRange(rightRenderBorder, rightRenderBorder + Block.SIZE);
-            tree.deleteInRange(leftRenderBorder, leftRenderBorder + Block.SIZE);
-            for (GameObject obj: gameObjects()) {
-                if (obj.getCenter().x() < leftRenderBorder + Block.SIZE){
-                    removeObjectFromGame(obj);
-                }
+        if (inputReplayer != null) {
+            if (!inputReplayer.advance()) {
+                windowController.closeWindow();
+                return;
             }
-            rightRenderBorder += Block.SIZE;
-            leftRenderBorder += Block.SIZE;
-        } else if (leftRenderBorder - avatar.getCenter().x() + halfWindowX + RADIUS_FACTOR > Block.SIZE){
-            terrain.createInRange(leftRenderBorder - Block.SIZE, leftRenderBorder);
-            tree.createInRange(leftRenderBorder - Block.SIZE, leftRenderBorder);
-            tree.deleteInRange(rightRenderBorder - Block.SIZE, rightRenderBorder);
-            for (GameObject obj: gameObjects()) {
-                if (obj.getCenter().x() > rightRenderBorder - Block.SIZE){
-                    removeObjectFromGame(obj);
-                }
-            }
-            rightRenderBorder -= Block.SIZE;
-            leftRenderBorder -= Block.SIZE;
+            deltaTime = inputReplayer.tickLength();
+        } else if (inputRecorder != null) {
+            inputRecorder.tick();
+            deltaTime = RECORDED_TICK;
         }
+        long frameStart = Metrics.start();
+        levelOfDetail.setCenter(avatar.getCenter().x());
+        long stageStart = Metrics.start();
+        super.update(deltaTime);
+        Metrics.end(Stage.OBJECTS_UPDATE, stageStart);
+        stageStart = Metrics.start();
+        scheduler.advance(deltaTime);
+        Metrics.end(Stage.TIMERS, stageStart);
+        dayNightClock.advance(deltaTime);
+        chunkManager.update(avatar.getCenter().x());
+        tree.updateLiveCrowns(avatar.getCenter().x());
+        Metrics.end(Stage.FRAME, frameStart);
+        Metrics.frameEnded(deltaTime);
     }
 
-    private void removeObjectFromGame(GameObject obj) {
-        gameObjects().removeGameObject(obj, LOWER_TERRAIN_LAYER);
-        gameObjects().removeGameObject(obj, UPPER_TERRAIN_LAYER);
-//        gameObjects().removeGameObject(obj, STUMP_LAYER);
-//        gameObjects().removeGameObject(obj, LEAF_LAYER);
-    }
-
+    /**
+     * Runs the game. With -Dpepse.replay=<file>, the recorded trace is replayed in a window of the recorded size.
+     * @param args - Unused.
+     */
     public static void main(String[] args) {
+        String replayFile = System.getProperty(REPLAY_PROPERTY);
+        if (replayFile != null) {
+            try {
+                new PepseGameManager(InputReplayer.load(Paths.get(replayFile))).run();
+                return;
+            } catch (IOException e) {
+                System.err.println("Replay disabled: " + e.getMessage());
+            }
+        }
         new PepseGameManager().run();
     }
 }
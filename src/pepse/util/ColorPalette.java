@@ -0,0 +1,87 @@
+package pepse.util;
+
+import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
+
+import java.awt.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A bounded set of precomputed colors around a pivot, each with a shared renderable. Objects that only need "a color
+ * similar to the base color" pick one of these instead of allocating a new color and renderable of their own.
+ */
+public final class ColorPalette {
+
+    /**
+     * The number of colors precomputed for every base color.
+     */
+    public static final int DEFAULT_PALETTE_SIZE = 16;
+
+    private static final Map<Color, ColorPalette> palettes = new ConcurrentHashMap<>();
+    private static final WorldRandom PALETTE_RANDOM = new WorldRandom(0); // palettes are the same in every world
+
+    private final Color[] colors;
+    private final Renderable[] renderables;
+
+    /*
+    Creates a palette of the given size, sampled by ColorSupplier around the given base color. The colors depend on
+    the base color only, so a palette is the same whichever thread creates it first.
+     */
+    private ColorPalette(Color baseColor, int size) {
+        colors = new Color[size];
+        renderables = new Renderable[size];
+        for (int i = 0; i < size; i++) {
+            colors[i] = ColorSupplier.approximateColor(baseColor, PALETTE_RANDOM, i);
+            renderables[i] = new RectangleRenderable(colors[i]);
+        }
+    }
+
+    /**
+     * Returns the shared palette of the given base color, creating it on first use.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @return The palette of colors similar to baseColor.
+     */
+    public static ColorPalette of(Color baseColor) {
+        return palettes.computeIfAbsent(baseColor, color -> new ColorPalette(color, DEFAULT_PALETTE_SIZE));
+    }
+
+    /**
+     * @return The number of colors in the palette.
+     */
+    public int size() {
+        return colors.length;
+    }
+
+    /**
+     * @param index The index of a color in the palette, in the range [0, size()).
+     * @return The color in the given index.
+     */
+    public Color colorAt(int index) {
+        return colors[index];
+    }
+
+    /**
+     * @param index The index of a color in the palette, in the range [0, size()).
+     * @return The shared renderable of the color in the given index.
+     */
+    public Renderable renderableAt(int index) {
+        return renderables[index];
+    }
+
+    /**
+     * @return The index of a random color in the palette.
+     */
+    public int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(colors.length);
+    }
+
+    /**
+     * @return The shared renderable of a random color in the palette.
+     */
+    public Renderable randomRenderable() {
+        return renderables[randomIndex()];
+    }
+}
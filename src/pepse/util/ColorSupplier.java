@@ -1,7 +1,7 @@
 package pepse.util;
 
 import java.awt.*;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Provides procedurally-generated colors around a pivot.
@@ -9,7 +9,6 @@ import java.util.Random;
  */
 public final class ColorSupplier {
     private static final int DEFAULT_COLOR_DELTA = 10;
-    private final static Random random = new Random();
 
     /**
      * Returns a color similar to baseColor, with a default delta.
@@ -36,6 +35,25 @@ public final class ColorSupplier {
                 randomChannelInRange(baseColor.getBlue()-colorDelta, baseColor.getBlue()+colorDelta));
     }
 
+    /**
+     * Returns a color similar to baseColor, with a default delta, that is drawn from the given world randomness.
+     * The same key always gives the same color, on any thread.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param worldRandom The randomness to draw the color from.
+     * @param key The key of the color among the colors drawn for the same base color.
+     * @return A color similar to baseColor.
+     */
+    public static Color approximateColor(Color baseColor, WorldRandom worldRandom, long key) {
+        int[] channels = {baseColor.getRed(), baseColor.getGreen(), baseColor.getBlue()};
+        for (int i = 0; i < channels.length; i++) {
+            int channel = channels[i] - DEFAULT_COLOR_DELTA + worldRandom.nextInt(baseColor.getRGB(),
+                    WorldRandom.Purpose.PALETTE_COLOR, key * channels.length + i, 2 * DEFAULT_COLOR_DELTA + 1);
+            channels[i] = Math.min(255, Math.max(channel, 0));
+        }
+        return new Color(channels[0], channels[1], channels[2]);
+    }
+
     /**
      * This method generates a random value for a color channel within the given range [min, max].
      *
@@ -44,7 +62,7 @@ public final class ColorSupplier {
      * @return A random number in the range [min, max], clipped to [0,255].
      */
     private static int randomChannelInRange(int min, int max) {
-        int channel = random.nextInt(max-min+1) + min;
+        int channel = ThreadLocalRandom.current().nextInt(max-min+1) + min;
         return Math.min(255, Math.max(channel, 0));
     }
 }
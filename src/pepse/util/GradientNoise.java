@@ -0,0 +1,96 @@
+package pepse.util;
+
+import java.util.Random;
+
+/**
+ * Multi-octave one dimensional gradient (Perlin) noise. Every octave doubles the frequency of the previous one and
+ * scales its amplitude by the persistence, which gives rolling hills with smaller bumps on top of them.
+ */
+public class GradientNoise implements NoiseGenerator {
+
+    private static final int TABLE_SIZE = 256;
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+    private static final float OUTPUT_RANGE = 2f; // matches the range of SineNoise
+    private static final float GRADIENT_TO_UNIT = 2f; // 1D gradient noise lies in [-0.5, 0.5]
+
+    private final float[] gradients = new float[TABLE_SIZE];
+    private final float baseFrequency;
+    private final int octaves;
+    private final float persistence;
+    private final float normalization;
+
+    /**
+     * A constructor for a new GradientNoise instance.
+     * @param seed          - A seed for the gradients.
+     * @param baseFrequency - The frequency of the first octave.
+     * @param octaves       - The number of octaves.
+     * @param persistence   - The amplitude ratio between two consecutive octaves.
+     */
+    public GradientNoise(int seed, float baseFrequency, int octaves, float persistence) {
+        Random random = new Random(seed);
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            gradients[i] = random.nextFloat() * 2 - 1;
+        }
+        this.baseFrequency = baseFrequency;
+        this.octaves = octaves;
+        this.persistence = persistence;
+        float amplitudeSum = 0;
+        float amplitude = 1;
+        for (int i = 0; i < octaves; i++) {
+            amplitudeSum += amplitude;
+            amplitude *= persistence;
+        }
+        normalization = OUTPUT_RANGE * GRADIENT_TO_UNIT / amplitudeSum;
+    }
+
+    @Override
+    public double noiseAt(float x) {
+        float sum = 0;
+        float frequency = baseFrequency;
+        float amplitude = 1;
+        for (int i = 0; i < octaves; i++) {
+            sum += amplitude * gradientNoise(x * frequency + i * TABLE_SIZE);
+            frequency *= 2;
+            amplitude *= persistence;
+        }
+        return sum * normalization;
+    }
+
+    /*
+    Accumulates and normalizes the octaves in the same order of operations as noiseAt, so every value is
+    bit-identical to the matching call of noiseAt.
+     */
+    @Override
+    public void fill(float firstX, float stepX, double[] out, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            out[offset + i] = 0;
+        }
+        float frequency = baseFrequency;
+        float amplitude = 1;
+        for (int octave = 0; octave < octaves; octave++) {
+            float shift = octave * TABLE_SIZE;
+            for (int i = 0; i < count; i++) {
+                out[offset + i] = (float) out[offset + i] +
+                        amplitude * gradientNoise((firstX + i * stepX) * frequency + shift);
+            }
+            frequency *= 2;
+            amplitude *= persistence;
+        }
+        for (int i = 0; i < count; i++) {
+            out[offset + i] = (float) out[offset + i] * normalization;
+        }
+    }
+
+    /*
+    Evaluates a single octave: interpolates between the ramps of the gradients at the two lattice points around x.
+     */
+    private float gradientNoise(float x) {
+        float floor = (float) Math.floor(x);
+        int cell = (int) floor;
+        float t = x - floor;
+        float left = gradients[cell & TABLE_MASK] * t;
+        float right = gradients[(cell + 1) & TABLE_MASK] * (t - 1);
+        float fade = t * t * t * (t * (t * 6 - 15) + 10);
+        return left + fade * (right - left);
+    }
+}
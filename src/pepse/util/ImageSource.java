@@ -0,0 +1,18 @@
+package pepse.util;
+
+import danogl.gui.rendering.Renderable;
+
+/**
+ * A source of image renderables. The game reads them from disk through the window's image reader, while headless
+ * runs use stand-ins that need no files or display.
+ */
+@FunctionalInterface
+public interface ImageSource {
+
+    /**
+     * @param imageFilePath   - The path of the image.
+     * @param useTransparency - Whether the image's transparent pixels should stay transparent.
+     * @return A renderable of the image.
+     */
+    Renderable readImage(String imageFilePath, boolean useTransparency);
+}
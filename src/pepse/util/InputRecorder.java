@@ -0,0 +1,140 @@
+package pepse.util;
+
+import danogl.util.Vector2;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records the keyboard state of every tick of a run into a compact binary trace, together with the seed of the
+ * world, the window dimensions and the system properties that shape it, so that InputReplayer can play the run
+ * again. The recorder stands
+ * between the keyboard and the game: the keyboard is read once per tick, and the game sees exactly the state that
+ * was recorded.
+ * A trace is a header (MAGIC, VERSION, the seed, the tick length, the window width and height, and the number of
+ * recorded properties followed by the name of each, whether it was set and its value) followed by runs of equal ticks, each a snapshot byte and a
+ * variable-length count, so a long flight with the same keys held takes a few bytes.
+ * If the trace cannot be written, the error is reported once and the recording stops; the game goes on.
+ */
+public class InputRecorder implements KeyInput {
+
+    static final int MAGIC = 0x50494E50; // "PINP"
+    static final int VERSION = 3;
+    static final int VARINT_PAYLOAD_BITS = 7;
+    static final int VARINT_PAYLOAD_MASK = (1 << VARINT_PAYLOAD_BITS) - 1;
+    static final int VARINT_CONTINUATION = 1 << VARINT_PAYLOAD_BITS;
+
+    private final KeyInput source;
+    private DataOutputStream out;
+    private int snapshot = 0;
+    private int runSnapshot = 0;
+    private int runLength = 0;
+
+    /**
+     * A constructor for a new InputRecorder instance. The trace is written when the program exits.
+     * @param source     - The keyboard state to record.
+     * @param file       - The file to write the trace to. An existing file is replaced.
+     * @param seed       - The seed of the recorded world.
+     * @param tickLength - The duration of a tick when the trace is replayed, in seconds.
+     * @param windowDimensions - The dimensions of the window the world is created for.
+     * @param properties - The names of the system properties that shape the world, recorded with their values.
+     */
+    public InputRecorder(KeyInput source, Path file, int seed, float tickLength, Vector2 windowDimensions,
+                         String... properties) {
+        this.source = source;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(seed);
+            out.writeFloat(tickLength);
+            out.writeFloat(windowDimensions.x());
+            out.writeFloat(windowDimensions.y());
+            out.writeInt(properties.length);
+            for (String property : properties) {
+                String value = System.getProperty(property);
+                out.writeUTF(property);
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeUTF(value);
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    /**
+     * This method reads the keyboard state of a new tick and records it. It is called once per tick, before the
+     * game reads the keys.
+     */
+    public synchronized void tick() {
+        snapshot = InputSnapshot.capture(source);
+        if (runLength > 0 && snapshot != runSnapshot) {
+            writeRun();
+        }
+        runSnapshot = snapshot;
+        runLength++;
+    }
+
+    /**
+     * @param keyCode - A key code, as defined in java.awt.event.KeyEvent.
+     * @return true if the key was pressed when the current tick started.
+     */
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return InputSnapshot.isKeyPressed(snapshot, keyCode);
+    }
+
+    /**
+     * This method writes the last run and closes the trace. Ticks after it are not recorded.
+     */
+    public synchronized void close() {
+        if (out == null) {
+            return;
+        }
+        if (runLength > 0) {
+            writeRun();
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            fail(e);
+        }
+        out = null;
+    }
+
+    /*
+    Writes the current run of equal ticks: the snapshot, and the number of ticks in groups of 7 bits, the lowest
+    first, with the high bit set on every group but the last.
+     */
+    private void writeRun() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(runSnapshot);
+            int length = runLength;
+            while ((length & ~VARINT_PAYLOAD_MASK) != 0) {
+                out.writeByte((length & VARINT_PAYLOAD_MASK) | VARINT_CONTINUATION);
+                length >>>= VARINT_PAYLOAD_BITS;
+            }
+            out.writeByte(length);
+        } catch (IOException e) {
+            fail(e);
+        }
+        runLength = 0;
+    }
+
+    /*
+    Reports a failure to write the trace and stops the recording.
+     */
+    private void fail(IOException e) {
+        System.err.println("Input recording disabled: " + e.getMessage());
+        out = null;
+    }
+}
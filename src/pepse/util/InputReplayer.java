@@ -0,0 +1,187 @@
+package pepse.util;
+
+import danogl.util.Vector2;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Plays back a trace written by InputRecorder: the seed, the window dimensions and the system properties of the
+ * recorded world, and the keyboard state of every tick. The world is created with the recorded window dimensions
+ * and properties, and the game
+ * advances the replayer once per tick and runs the tick with the recorded tick length, so every replay of a trace
+ * builds the same world, moves the avatar along the same path and creates and removes the same objects.
+ */
+public class InputReplayer implements KeyInput {
+
+    private static final int INITIAL_RUNS = 64;
+
+    private final int seed;
+    private final float tickLength;
+    private final Vector2 windowDimensions;
+    private final Map<String, String> properties; // null values for properties that were not set
+    private final byte[] runSnapshots;
+    private final int[] runLengths;
+    private int run = 0;
+    private int ticksLeftInRun = 0;
+    private int snapshot = 0;
+
+    /*
+    Creates a replayer of the given decoded trace.
+     */
+    private InputReplayer(int seed, float tickLength, Vector2 windowDimensions, Map<String, String> properties,
+                          byte[] runSnapshots, int[] runLengths) {
+        this.seed = seed;
+        this.tickLength = tickLength;
+        this.windowDimensions = windowDimensions;
+        this.properties = properties;
+        this.runSnapshots = runSnapshots;
+        this.runLengths = runLengths;
+    }
+
+    /**
+     * This method reads a trace.
+     * @param file - A file written by InputRecorder.
+     * @return A replayer positioned before the first tick of the trace.
+     * @throws IOException If the file cannot be read or is not a trace of this version.
+     */
+    public static InputReplayer load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != InputRecorder.MAGIC || in.readInt() != InputRecorder.VERSION) {
+                throw new IOException(file + " is not an input trace of version " + InputRecorder.VERSION);
+            }
+            int seed = in.readInt();
+            float tickLength = in.readFloat();
+            Vector2 windowDimensions = new Vector2(in.readFloat(), in.readFloat());
+            Map<String, String> properties = new LinkedHashMap<>();
+            int propertyCount = in.readInt();
+            for (int i = 0; i < propertyCount; i++) {
+                String property = in.readUTF();
+                properties.put(property, in.readBoolean() ? in.readUTF() : null);
+            }
+            byte[] runSnapshots = new byte[INITIAL_RUNS];
+            int[] runLengths = new int[INITIAL_RUNS];
+            int runs = 0;
+            int runSnapshot;
+            while ((runSnapshot = in.read()) != -1) {
+                if (runs == runLengths.length) {
+                    runSnapshots = Arrays.copyOf(runSnapshots, runs * 2);
+                    runLengths = Arrays.copyOf(runLengths, runs * 2);
+                }
+                runSnapshots[runs] = (byte) runSnapshot;
+                runLengths[runs] = readLength(in);
+                runs++;
+            }
+            return new InputReplayer(seed, tickLength, windowDimensions, properties,
+                    Arrays.copyOf(runSnapshots, runs), Arrays.copyOf(runLengths, runs));
+        }
+    }
+
+    /**
+     * @return The seed of the recorded world.
+     */
+    public int seed() {
+        return seed;
+    }
+
+    /**
+     * @return The dimensions of the window the recorded world was created for.
+     */
+    public Vector2 windowDimensions() {
+        return windowDimensions;
+    }
+
+    /**
+     * This method applies the system properties the trace was recorded with, so the world is created as it was
+     * recorded. It must be called before the world is created. A property that is already set to a different value
+     * (or set when it was not recorded as set) would build a different world, so then nothing is applied.
+     * @throws IOException If a recorded property is set to a different value.
+     */
+    public void applyProperties() throws IOException {
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            String value = System.getProperty(property.getKey());
+            if (value != null && !Objects.equals(value, property.getValue())) {
+                String recorded = property.getValue() == null ? "without " + property.getKey() :
+                        "with " + property.getKey() + "=" + property.getValue();
+                throw new IOException("the trace was recorded " + recorded + ", not " + value);
+            }
+        }
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            if (property.getValue() != null) {
+                System.setProperty(property.getKey(), property.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return The duration of every tick of the replay, in seconds.
+     */
+    public float tickLength() {
+        return tickLength;
+    }
+
+    /**
+     * @return The number of ticks in the trace.
+     */
+    public long tickCount() {
+        long ticks = 0;
+        for (int length : runLengths) {
+            ticks += length;
+        }
+        return ticks;
+    }
+
+    /**
+     * This method moves to the keyboard state of the next tick. It is called once per tick, before the game reads
+     * the keys.
+     * @return true if there was another tick, false if the trace is over (then no key is pressed).
+     */
+    public boolean advance() {
+        while (ticksLeftInRun == 0) {
+            if (run == runLengths.length) {
+                snapshot = 0;
+                return false;
+            }
+            snapshot = runSnapshots[run];
+            ticksLeftInRun = runLengths[run];
+            run++;
+        }
+        ticksLeftInRun--;
+        return true;
+    }
+
+    /**
+     * @param keyCode - A key code, as defined in java.awt.event.KeyEvent.
+     * @return true if the key was pressed in the current tick of the trace.
+     */
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return InputSnapshot.isKeyPressed(snapshot, keyCode);
+    }
+
+    /*
+    Reads a run length written by InputRecorder, in groups of 7 bits, the lowest first.
+     */
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = 0;
+        int shift = 0;
+        int group;
+        do {
+            group = in.read();
+            if (group == -1) {
+                throw new EOFException("The input trace ends in the middle of a run");
+            }
+            length |= (group & InputRecorder.VARINT_PAYLOAD_MASK) << shift;
+            shift += InputRecorder.VARINT_PAYLOAD_BITS;
+        } while ((group & InputRecorder.VARINT_CONTINUATION) != 0);
+        return length;
+    }
+}
@@ -0,0 +1,73 @@
+package pepse.util;
+
+import java.awt.event.KeyEvent;
+
+/**
+ * The state of the keys the game reacts to, packed into the bits of an int. The keyboard is read once per tick into
+ * a snapshot, and everything during the tick is decided from the snapshot.
+ */
+public final class InputSnapshot {
+
+    /**
+     * The bit of the left arrow key.
+     */
+    public static final int LEFT = 1;
+
+    /**
+     * The bit of the right arrow key.
+     */
+    public static final int RIGHT = 1 << 1;
+
+    /**
+     * The bit of the space key.
+     */
+    public static final int SPACE = 1 << 2;
+
+    /**
+     * The bit of the shift key.
+     */
+    public static final int SHIFT = 1 << 3;
+
+    private static final int[] KEY_CODES = {KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_SPACE, KeyEvent.VK_SHIFT};
+
+    private InputSnapshot() {
+    }
+
+    /**
+     * This method reads the keys the game reacts to.
+     * @param input - The source of the keyboard state.
+     * @return A snapshot with the bit of every pressed key set.
+     */
+    public static int capture(KeyInput input) {
+        int snapshot = 0;
+        for (int i = 0; i < KEY_CODES.length; i++) {
+            if (input.isKeyPressed(KEY_CODES[i])) {
+                snapshot |= 1 << i;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @param snapshot - A snapshot returned by capture.
+     * @param keys     - One or more key bits.
+     * @return true if all the given keys are pressed in the snapshot.
+     */
+    public static boolean isPressed(int snapshot, int keys) {
+        return (snapshot & keys) == keys;
+    }
+
+    /**
+     * @param snapshot - A snapshot returned by capture.
+     * @param keyCode  - A key code, as defined in java.awt.event.KeyEvent.
+     * @return true if the key is pressed in the snapshot. Keys the game does not react to are never pressed.
+     */
+    public static boolean isKeyPressed(int snapshot, int keyCode) {
+        for (int i = 0; i < KEY_CODES.length; i++) {
+            if (KEY_CODES[i] == keyCode) {
+                return isPressed(snapshot, 1 << i);
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package pepse.util;
+
+/**
+ * A source of keyboard state. The game reads it from the window's input listener, while headless runs and replays
+ * feed it from a script.
+ */
+@FunctionalInterface
+public interface KeyInput {
+
+    /**
+     * @param keyCode - A key code, as defined in java.awt.event.KeyEvent.
+     * @return true if the key is currently pressed.
+     */
+    boolean isKeyPressed(int keyCode);
+}
@@ -0,0 +1,63 @@
+package pepse.util;
+
+/**
+ * A histogram of durations with power-of-two nanosecond buckets. Recording is synchronized, since stages can be
+ * timed on generator threads as well as on the game thread.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+
+    /**
+     * @param nanos - A duration in nanoseconds.
+     */
+    public synchronized void record(long nanos) {
+        buckets[BUCKETS - 1 - Long.numberOfLeadingZeros(Math.max(1, nanos))]++;
+        count++;
+        total += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    /**
+     * @return The number of recorded durations.
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * @return The mean duration in nanoseconds, or 0 if nothing was recorded.
+     */
+    public synchronized double mean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @return The longest recorded duration in nanoseconds.
+     */
+    public synchronized long max() {
+        return max;
+    }
+
+    /**
+     * @param fraction - A fraction in the range [0, 1], e.g. 0.99.
+     * @return An upper bound (the top of the bucket) of the duration below which the given fraction of durations
+     * fall, in nanoseconds.
+     */
+    public synchronized long percentile(double fraction) {
+        long target = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= target && seen > 0) {
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : (2L << i) - 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,210 @@
+package pepse.util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A lightweight in-process metrics registry: latency histograms per stage (each timed stage also emits a JFR
+ * event), live object counts per layer, and a once-per-second timeline of objects created and removed and of the
+ * throughput of crowd agents. Everything is
+ * dumped to CSV files when the program exits.
+ * Metrics are enabled with -Dpepse.metrics=true. When disabled, ENABLED is a constant false and every call returns
+ * immediately, so the JIT removes the instrumentation altogether.
+ */
+public final class Metrics {
+
+    /**
+     * Whether metrics are collected in this run.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("pepse.metrics");
+
+    private static final String FILE_PREFIX = System.getProperty("pepse.metrics.file", "pepse-metrics");
+    private static final String LATENCY_SUFFIX = "-latency.csv";
+    private static final String TIMELINE_SUFFIX = "-timeline.csv";
+    private static final float TIMELINE_INTERVAL = 1f;
+    private static final double NANOS_IN_MICRO = 1e3;
+    private static final double P50 = 0.5;
+    private static final double P99 = 0.99;
+
+    private static final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private static final Map<Integer, long[]> liveObjectsPerLayer = new TreeMap<>();
+    private static final ArrayList<TimelineRow> timeline = new ArrayList<>();
+    private static long objectsCreated = 0;
+    private static long objectsRemoved = 0;
+    private static long lastObjectsCreated = 0;
+    private static long lastObjectsRemoved = 0;
+    private static long agentUpdates = 0;
+    private static long lastAgentUpdates = 0;
+    private static int framesInInterval = 0;
+    private static float timeInInterval = 0;
+    private static float elapsedTime = 0;
+
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(Metrics::dump));
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Marks the start of a timed stage.
+     * @return A timestamp to pass to end, or 0 when metrics are disabled.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Marks the end of a timed stage: records its duration and emits a JFR event.
+     * @param stage - The stage that ended.
+     * @param start - The timestamp returned by start when the stage began.
+     */
+    public static void end(Stage stage, long start) {
+        if (!ENABLED) {
+            return;
+        }
+        long duration = System.nanoTime() - start;
+        histograms[stage.ordinal()].record(duration);
+        StageEvent event = new StageEvent();
+        if (event.shouldCommit()) {
+            event.stage = stage.name();
+            event.duration = duration;
+            event.commit();
+        }
+    }
+
+    /**
+     * Declares the layers whose live objects are counted, so every row of the timeline has a column for each of them
+     * from the start. Must be called by the game thread, before the first frame.
+     * @param layers - The layers objects are counted in.
+     */
+    public static void trackLayers(int... layers) {
+        if (ENABLED) {
+            for (int layer : layers) {
+                liveObjectsPerLayer.computeIfAbsent(layer, key -> new long[1]);
+            }
+        }
+    }
+
+    /**
+     * Counts a game object that was added to the game. Must be called by the game thread.
+     * @param layer - The layer the object was added to.
+     */
+    public static void objectAdded(int layer) {
+        if (ENABLED) {
+            liveObjectsPerLayer.computeIfAbsent(layer, key -> new long[1])[0]++;
+            objectsCreated++;
+        }
+    }
+
+    /**
+     * Counts a game object that was removed from the game. Must be called by the game thread.
+     * @param layer - The layer the object was removed from.
+     */
+    public static void objectRemoved(int layer) {
+        if (ENABLED) {
+            liveObjectsPerLayer.computeIfAbsent(layer, key -> new long[1])[0]--;
+            objectsRemoved++;
+        }
+    }
+
+    /**
+     * Counts the agents of a crowd that were advanced in a frame. Must be called by the game thread.
+     * @param count - The number of agents advanced.
+     */
+    public static void agentsUpdated(int count) {
+        if (ENABLED) {
+            agentUpdates += count;
+        }
+    }
+
+    /**
+     * Marks the end of a frame, and once per second of game time appends a row to the timeline.
+     * Must be called by the game thread.
+     * @param deltaTime - The duration of the frame.
+     */
+    public static void frameEnded(float deltaTime) {
+        if (!ENABLED) {
+            return;
+        }
+        framesInInterval++;
+        timeInInterval += deltaTime;
+        elapsedTime += deltaTime;
+        if (timeInInterval >= TIMELINE_INTERVAL) {
+            Map<Integer, Long> liveObjects = new TreeMap<>();
+            for (Map.Entry<Integer, long[]> layer : liveObjectsPerLayer.entrySet()) {
+                liveObjects.put(layer.getKey(), layer.getValue()[0]);
+            }
+            timeline.add(new TimelineRow(String.format("%.3f,%d,%.1f,%.1f,%.1f", elapsedTime, framesInInterval,
+                    (objectsCreated - lastObjectsCreated) / timeInInterval,
+                    (objectsRemoved - lastObjectsRemoved) / timeInInterval,
+                    (agentUpdates - lastAgentUpdates) / timeInInterval), liveObjects));
+            lastObjectsCreated = objectsCreated;
+            lastObjectsRemoved = objectsRemoved;
+            lastAgentUpdates = agentUpdates;
+            framesInInterval = 0;
+            timeInInterval = 0;
+        }
+    }
+
+    /*
+    Writes the latency histograms and the timeline to CSV files.
+     */
+    private static void dump() {
+        try (PrintWriter latency = new PrintWriter(Files.newBufferedWriter(
+                Paths.get(FILE_PREFIX + LATENCY_SUFFIX), StandardCharsets.UTF_8))) {
+            latency.println("stage,count,mean_us,p50_us,p99_us,max_us");
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram histogram = histograms[stage.ordinal()];
+                latency.printf("%s,%d,%.3f,%.3f,%.3f,%.3f%n", stage.name(), histogram.count(),
+                        histogram.mean() / NANOS_IN_MICRO, histogram.percentile(P50) / NANOS_IN_MICRO,
+                        histogram.percentile(P99) / NANOS_IN_MICRO, histogram.max() / NANOS_IN_MICRO);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write latency metrics: " + e.getMessage());
+        }
+        try (PrintWriter timelineFile = new PrintWriter(Files.newBufferedWriter(
+                Paths.get(FILE_PREFIX + TIMELINE_SUFFIX), StandardCharsets.UTF_8))) {
+            StringBuilder header = new StringBuilder("time_s,frames,created_per_s,removed_per_s,agent_updates_per_s");
+            for (int layer : liveObjectsPerLayer.keySet()) {
+                header.append(",live_layer_").append(layer);
+            }
+            timelineFile.println(header);
+            for (TimelineRow row : timeline) {
+                StringBuilder line = new StringBuilder(row.rates);
+                for (int layer : liveObjectsPerLayer.keySet()) {
+                    line.append(',').append(row.liveObjects.getOrDefault(layer, 0L));
+                }
+                timelineFile.println(line);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write timeline metrics: " + e.getMessage());
+        }
+    }
+
+    /*
+    A row of the timeline: the formatted rates of the interval, and the live object count of every layer that had
+    objects counted by then. A layer first counted later is written as 0 in the earlier rows, so every row has a value
+    under every column of the header.
+     */
+    private static final class TimelineRow {
+        private final String rates;
+        private final Map<Integer, Long> liveObjects;
+
+        private TimelineRow(String rates, Map<Integer, Long> liveObjects) {
+            this.rates = rates;
+            this.liveObjects = liveObjects;
+        }
+    }
+}
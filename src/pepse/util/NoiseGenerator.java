@@ -0,0 +1,31 @@
+package pepse.util;
+
+/**
+ * A one dimensional noise function used to shape the terrain. Values are roughly in the range [-2, 2]. They are
+ * doubles, so the terrain can turn them into heights with the same double arithmetic as the original two-sine
+ * terrain.
+ */
+public interface NoiseGenerator {
+
+    /**
+     * @param x - A location in world coordinates.
+     * @return The noise value at x.
+     */
+    double noiseAt(float x);
+
+    /**
+     * Fills a range of an array with the noise values of evenly spaced locations. Implementations override it with
+     * a tight loop over primitive arrays when they can do better than calling noiseAt per element.
+     *
+     * @param firstX - The location of the first value.
+     * @param stepX  - The distance between two consecutive locations.
+     * @param out    - The array to fill.
+     * @param offset - The index of the first value in the array.
+     * @param count  - The number of values to fill.
+     */
+    default void fill(float firstX, float stepX, double[] out, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            out[offset + i] = noiseAt(firstX + i * stepX);
+        }
+    }
+}
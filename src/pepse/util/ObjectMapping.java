@@ -1,25 +1,218 @@
 package pepse.util;
 
 import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
 
-import java.util.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 
+/**
+ * A spatial index of game objects keyed by an int (a column or chunk index). Every object is kept together with the
+ * layer it was added to, so range removals touch only the affected objects and remove each of them from the right
+ * layer. Keys are primitive ints in an open-addressing table, so lookups never box.
+ */
 public class ObjectMapping {
 
-    private static final Map<Integer, ArrayList<GameObject>> objectMapping = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_BUCKET_SIZE = 4;
+    private static final float MAX_LOAD = 0.5f;
 
-    public static void addObj(int k, GameObject gameObject){
-        if (!objectMapping.containsKey(k)){
-            objectMapping.put(k, new ArrayList<>());
+    /**
+     * Receives the objects of a key (or a range of keys) together with their layers.
+     */
+    @FunctionalInterface
+    public interface ObjectVisitor {
+        /**
+         * @param gameObject - An object of the index.
+         * @param layer      - The layer the object was added to.
+         */
+        void visit(GameObject gameObject, int layer);
+    }
+
+    /*
+    The objects of a single key.
+     */
+    private static final class Bucket {
+        private GameObject[] objects = new GameObject[INITIAL_BUCKET_SIZE];
+        private int[] layers = new int[INITIAL_BUCKET_SIZE];
+        private int size = 0;
+    }
+
+    private final ArrayDeque<Bucket> freeBuckets = new ArrayDeque<>();
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private Bucket[] buckets = new Bucket[INITIAL_CAPACITY];
+    private int keyCount = 0;
+    private int objectCount = 0;
+
+    /**
+     * This method adds an object to the index.
+     * @param k          - The key of the object.
+     * @param gameObject - The object.
+     * @param layer      - The layer the object was added to.
+     */
+    public void addObj(int k, GameObject gameObject, int layer) {
+        int slot = findSlot(k);
+        if (buckets[slot] == null) {
+            if (keyCount + 1 > buckets.length * MAX_LOAD) {
+                rehash(buckets.length * 2);
+                slot = findSlot(k);
+            }
+            Bucket bucket = freeBuckets.poll();
+            buckets[slot] = bucket == null ? new Bucket() : bucket;
+            keys[slot] = k;
+            keyCount++;
+        }
+        Bucket bucket = buckets[slot];
+        if (bucket.size == bucket.objects.length) {
+            bucket.objects = Arrays.copyOf(bucket.objects, bucket.size * 2);
+            bucket.layers = Arrays.copyOf(bucket.layers, bucket.size * 2);
+        }
+        bucket.objects[bucket.size] = gameObject;
+        bucket.layers[bucket.size] = layer;
+        bucket.size++;
+        objectCount++;
+    }
+
+    /**
+     * This method removes an object from the index (but not from the game).
+     * @param k          - The key of the object.
+     * @param gameObject - The object.
+     * @return true if the object was in the index.
+     */
+    public boolean removeObj(int k, GameObject gameObject) {
+        int slot = findSlot(k);
+        Bucket bucket = buckets[slot];
+        if (bucket == null) {
+            return false;
+        }
+        for (int i = 0; i < bucket.size; i++) {
+            if (bucket.objects[i] == gameObject) {
+                bucket.size--;
+                bucket.objects[i] = bucket.objects[bucket.size];
+                bucket.layers[i] = bucket.layers[bucket.size];
+                bucket.objects[bucket.size] = null;
+                objectCount--;
+                if (bucket.size == 0) {
+                    removeSlot(slot);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method removes every object with a key in the given range from the game (from the layer it was added
+     * to) and from the index.
+     * @param minKey      - The first key of the range.
+     * @param maxKey      - The last key of the range (inclusive).
+     * @param gameObjects - The collection the objects were added to.
+     * @param onRemoved   - Receives every removed object, e.g. to return it to a pool. May be null.
+     * @return The number of removed objects.
+     */
+    public int removeRange(int minKey, int maxKey, GameObjectCollection gameObjects, ObjectVisitor onRemoved) {
+        int removed = 0;
+        for (int k = minKey; k <= maxKey; k++) {
+            int slot = findSlot(k);
+            Bucket bucket = buckets[slot];
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size; i++) {
+                gameObjects.removeGameObject(bucket.objects[i], bucket.layers[i]);
+                if (onRemoved != null) {
+                    onRemoved.visit(bucket.objects[i], bucket.layers[i]);
+                }
+                bucket.objects[i] = null;
+            }
+            removed += bucket.size;
+            objectCount -= bucket.size;
+            bucket.size = 0;
+            removeSlot(slot);
+        }
+        return removed;
+    }
+
+    /**
+     * This method visits every object with a key in the given range.
+     * @param minKey  - The first key of the range.
+     * @param maxKey  - The last key of the range (inclusive).
+     * @param visitor - Receives every object in the range.
+     */
+    public void forEachInRange(int minKey, int maxKey, ObjectVisitor visitor) {
+        for (int k = minKey; k <= maxKey; k++) {
+            Bucket bucket = buckets[findSlot(k)];
+            if (bucket != null) {
+                for (int i = 0; i < bucket.size; i++) {
+                    visitor.visit(bucket.objects[i], bucket.layers[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of objects in the index.
+     */
+    public int size() {
+        return objectCount;
+    }
+
+    /*
+    Returns the slot of the given key, or the empty slot where it should be inserted.
+     */
+    private int findSlot(int k) {
+        int mask = buckets.length - 1;
+        int slot = mix(k) & mask;
+        while (buckets[slot] != null && keys[slot] != k) {
+            slot = (slot + 1) & mask;
         }
-        objectMapping.get(k).add(gameObject);
+        return slot;
     }
 
-    public static void removeObj(int k, GameObject gameObject){
-        if (objectMapping.containsKey(k)){
-            objectMapping.get(k).remove(gameObject);
+    /*
+    Empties a slot and shifts back the entries of the probe sequence that follows it, so no tombstones are needed.
+     */
+    private void removeSlot(int slot) {
+        freeBuckets.push(buckets[slot]);
+        buckets[slot] = null;
+        keyCount--;
+        int mask = buckets.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (buckets[next] != null) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                buckets[hole] = buckets[next];
+                keys[hole] = keys[next];
+                buckets[next] = null;
+                hole = next;
+            }
+            next = (next + 1) & mask;
         }
     }
 
+    /*
+    Moves every entry into a table of the given capacity.
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Bucket[] oldBuckets = buckets;
+        keys = new int[capacity];
+        buckets = new Bucket[capacity];
+        for (int i = 0; i < oldBuckets.length; i++) {
+            if (oldBuckets[i] != null) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                buckets[slot] = oldBuckets[i];
+            }
+        }
+    }
 
+    /*
+    Spreads consecutive keys over the table.
+     */
+    private static int mix(int k) {
+        int h = k * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
 }
@@ -0,0 +1,80 @@
+package pepse.util;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of reusable objects. Objects that are released are kept for the next acquisition instead of being
+ * thrown away, and the pool keeps statistics of how often an acquisition was served without allocating.
+ * @param <T> The type of the pooled objects.
+ */
+public class ObjectPool<T> {
+
+    private final Supplier<T> factory;
+    private final int maxSize;
+    private final ArrayDeque<T> freeObjects = new ArrayDeque<>();
+    private long acquisitions = 0;
+    private long hits = 0;
+
+    /**
+     * A constructor for a new ObjectPool instance.
+     * @param factory - Creates a new object when the pool is empty.
+     * @param maxSize - The maximal number of released objects kept by the pool.
+     */
+    public ObjectPool(Supplier<T> factory, int maxSize) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * This method returns a released object if there is one, or a new object otherwise. The caller is responsible
+     * for resetting the returned object before using it.
+     * @return An object that is not in use.
+     */
+    public T acquire() {
+        acquisitions++;
+        T obj = freeObjects.pollLast();
+        if (obj == null) {
+            return factory.get();
+        }
+        hits++;
+        return obj;
+    }
+
+    /**
+     * This method returns an object that is no longer in use to the pool.
+     * @param obj - An object that was acquired from this pool.
+     */
+    public void release(T obj) {
+        if (freeObjects.size() < maxSize) {
+            freeObjects.addLast(obj);
+        }
+    }
+
+    /**
+     * @return The number of released objects currently waiting in the pool.
+     */
+    public int size() {
+        return freeObjects.size();
+    }
+
+    /**
+     * @return The number of objects the pool had to allocate so far.
+     */
+    public long allocations() {
+        return acquisitions - hits;
+    }
+
+    /**
+     * @return The fraction of acquisitions that were served by a released object, or 0 if there were none.
+     */
+    public double hitRate() {
+        return acquisitions == 0 ? 0 : (double) hits / acquisitions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d, acquisitions=%d, allocations=%d, hitRate=%.3f",
+                size(), acquisitions, allocations(), hitRate());
+    }
+}
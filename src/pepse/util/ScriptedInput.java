@@ -0,0 +1,54 @@
+package pepse.util;
+
+import java.util.ArrayList;
+
+/**
+ * Keyboard state that follows a looping script of steps, each holding a set of keys for a number of ticks.
+ * Used to drive the avatar when there is no user, e.g. in headless runs.
+ */
+public class ScriptedInput implements KeyInput {
+
+    private final ArrayList<int[]> stepKeys = new ArrayList<>();
+    private final ArrayList<Integer> stepTicks = new ArrayList<>();
+    private int currentStep = 0;
+    private int ticksInStep = 0;
+
+    /**
+     * This method appends a step to the script.
+     * @param ticks - The number of ticks the step lasts.
+     * @param keys  - The key codes held during the step (none for standing still).
+     * @return This script, for chaining.
+     */
+    public ScriptedInput addStep(int ticks, int... keys) {
+        stepKeys.add(keys);
+        stepTicks.add(ticks);
+        return this;
+    }
+
+    /**
+     * This method moves the script one tick forward, starting over after the last step.
+     */
+    public void advance() {
+        if (stepTicks.isEmpty()) {
+            return;
+        }
+        ticksInStep++;
+        if (ticksInStep >= stepTicks.get(currentStep)) {
+            ticksInStep = 0;
+            currentStep = (currentStep + 1) % stepTicks.size();
+        }
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        if (stepKeys.isEmpty()) {
+            return false;
+        }
+        for (int key : stepKeys.get(currentStep)) {
+            if (key == keyCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,34 @@
+package pepse.util;
+
+/**
+ * The classic terrain noise: the sum of two sine waves with different frequencies. The first frequency is a float
+ * and is multiplied by x in float, like the original terrain did, so the values are exactly the original ones.
+ */
+public class SineNoise implements NoiseGenerator {
+
+    private final float firstFrequency;
+    private final double secondFrequency;
+
+    /**
+     * A constructor for a new SineNoise instance.
+     * @param firstFrequency  - The frequency of the first wave.
+     * @param secondFrequency - The frequency of the second wave.
+     */
+    public SineNoise(float firstFrequency, double secondFrequency) {
+        this.firstFrequency = firstFrequency;
+        this.secondFrequency = secondFrequency;
+    }
+
+    @Override
+    public double noiseAt(float x) {
+        return Math.sin(firstFrequency * x) + Math.sin(secondFrequency * x);
+    }
+
+    @Override
+    public void fill(float firstX, float stepX, double[] out, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            float x = firstX + i * stepX;
+            out[offset + i] = Math.sin(firstFrequency * x) + Math.sin(secondFrequency * x);
+        }
+    }
+}
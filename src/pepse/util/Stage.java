@@ -0,0 +1,29 @@
+package pepse.util;
+
+/**
+ * The stages of a frame (and of background generation) that are timed by the metrics.
+ */
+public enum Stage {
+    /** A whole call to PepseGameManager.update. */
+    FRAME,
+    /** The engine's update of all game objects and collisions. */
+    OBJECTS_UPDATE,
+    /** The update of the avatar. */
+    AVATAR_UPDATE,
+    /** The update of a single leaf, including its transitions. */
+    LEAF_UPDATE,
+    /** The batched update of all the agents of a crowd. */
+    CROWD_UPDATE,
+    /** Drawing all the agents of a crowd. */
+    CROWD_RENDER,
+    /** Firing the timers that are due on the world scheduler. */
+    TIMERS,
+    /** Describing a chunk, usually on a generator thread. */
+    CHUNK_DESCRIPTION,
+    /** Attaching the terrain of a chunk. */
+    TERRAIN_GENERATION,
+    /** Attaching the trees of a chunk. */
+    TREE_BUILDING,
+    /** Removing the terrain and trees of a chunk. */
+    CHUNK_REMOVAL
+}
@@ -0,0 +1,25 @@
+package pepse.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A JFR event recorded for every timed stage when metrics are enabled.
+ */
+@Name("pepse.Stage")
+@Label("Pepse Stage")
+@Category("Pepse")
+@Description("The duration of a timed stage of the simulator")
+class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long duration;
+}
@@ -0,0 +1,176 @@
+package pepse.util;
+
+/**
+ * A hierarchical timing wheel that runs tasks after a delay. Timers are kept in buckets by their deadline, so
+ * advancing the wheel only touches the timers that fire (and, once in a while, a bucket of far timers that moves to
+ * a finer level), no matter how many timers are pending.
+ * Timers are owned by their users and can be rescheduled any number of times without allocating.
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    /**
+     * A task that can be scheduled on a timing wheel.
+     */
+    public static final class Timer {
+        private final Runnable task;
+        private long deadline;
+        private Timer next;
+        private Timer prev;
+        private Timer[] bucket;
+        private int slot;
+
+        /**
+         * A constructor for a new Timer instance.
+         * @param task - The task to run whenever the timer fires.
+         */
+        public Timer(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * @return true if the timer is waiting to fire.
+         */
+        public boolean isScheduled() {
+            return bucket != null;
+        }
+    }
+
+    private final float tickDuration;
+    private final Timer[][] wheels = new Timer[LEVELS][SLOTS];
+    private long currentTick = 0;
+    private float accumulatedTime = 0;
+    private int pendingCount = 0;
+
+    /**
+     * A constructor for a new TimingWheel instance.
+     * @param tickDuration - The resolution of the wheel in seconds. Deadlines are rounded up to whole ticks.
+     */
+    public TimingWheel(float tickDuration) {
+        this.tickDuration = tickDuration;
+    }
+
+    /**
+     * This method schedules a timer to fire after the given delay. A timer that is already scheduled is moved to
+     * the new deadline.
+     * @param timer - The timer to schedule.
+     * @param delay - The delay in seconds.
+     */
+    public void schedule(Timer timer, float delay) {
+        cancel(timer);
+        long ticks = Math.max(1, (long) Math.ceil(delay / tickDuration));
+        timer.deadline = currentTick + Math.min(ticks, MAX_DELAY_TICKS);
+        insert(timer);
+        pendingCount++;
+    }
+
+    /**
+     * This method cancels a timer. Canceling a timer that is not scheduled does nothing.
+     * @param timer - The timer to cancel.
+     */
+    public void cancel(Timer timer) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+            pendingCount--;
+        }
+    }
+
+    /**
+     * This method advances the wheel by the given time and runs every timer whose deadline has passed.
+     * @param deltaTime - The time (in seconds) that passed since the previous call.
+     */
+    public void advance(float deltaTime) {
+        accumulatedTime += deltaTime;
+        while (accumulatedTime >= tickDuration) {
+            accumulatedTime -= tickDuration;
+            tick();
+        }
+    }
+
+    /**
+     * @return The number of timers waiting to fire.
+     */
+    public int pendingCount() {
+        return pendingCount;
+    }
+
+    /*
+    Moves the wheel one tick forward: cascades far timers whose range has been reached into finer levels, and then
+    fires every timer of the current tick.
+     */
+    private void tick() {
+        currentTick++;
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                break;
+            }
+            cascade(wheels[level], (int) ((currentTick >>> shift) & SLOT_MASK));
+        }
+        Timer[] bucket = wheels[0];
+        int slot = (int) (currentTick & SLOT_MASK);
+        while (bucket[slot] != null) {
+            Timer timer = bucket[slot];
+            unlink(timer);
+            pendingCount--;
+            timer.task.run();
+        }
+    }
+
+    /*
+    Reinserts every timer of a bucket according to its remaining delay.
+     */
+    private void cascade(Timer[] bucket, int slot) {
+        Timer timer = bucket[slot];
+        bucket[slot] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.bucket = null;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    /*
+    Links a timer into the bucket of the finest level whose range contains its deadline.
+     */
+    private void insert(Timer timer) {
+        long delta = timer.deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << ((level + 1) * SLOT_BITS))) {
+            level++;
+        }
+        Timer[] bucket = wheels[level];
+        int slot = (int) ((timer.deadline >>> (level * SLOT_BITS)) & SLOT_MASK);
+        timer.bucket = bucket;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = bucket[slot];
+        if (bucket[slot] != null) {
+            bucket[slot].prev = timer;
+        }
+        bucket[slot] = timer;
+    }
+
+    /*
+    Removes a timer from its bucket.
+     */
+    private void unlink(Timer timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            timer.bucket[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.next = null;
+        timer.prev = null;
+        timer.bucket = null;
+    }
+}
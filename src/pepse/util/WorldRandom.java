@@ -0,0 +1,106 @@
+package pepse.util;
+
+/**
+ * Stateless, counter-based randomness of a world. Every random value is a hash of the world's seed, a location, the
+ * purpose the value is drawn for and an index, so the same question always gets the same answer - on any thread, in
+ * any order, and without allocating a generator per location.
+ * The hash is the finalizer of SplitMix64, which passes common statistical tests for this use.
+ */
+public final class WorldRandom {
+
+    /**
+     * What a random value is drawn for. Values of different purposes at the same location are independent.
+     */
+    public enum Purpose {
+        /** Whether a tree is planted in a column. */
+        TREE_PLACEMENT,
+        /** The height of a tree. */
+        TREE_HEIGHT,
+        /** The colors of the top blocks of a column. */
+        TOP_BLOCK_COLOR,
+        /** The colors of the baked lower terrain of a column. */
+        LOWER_TERRAIN_COLOR,
+        /** The color of a leaf. */
+        LEAF_COLOR,
+        /** The time a leaf stays on its tree. */
+        LEAF_TIME_ON_TREE,
+        /** The time a leaf rests on the ground. */
+        LEAF_TIME_ON_GROUND,
+        /** The delay before a leaf starts swaying. */
+        LEAF_SHAKE_DELAY,
+        /** The colors of a palette. */
+        PALETTE_COLOR,
+        /** The decisions of an agent of a crowd. */
+        CROWD_DECISION
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final float FLOAT_UNIT = 0x1.0p-24f;
+    private static final int FLOAT_SHIFT = 40;
+    private static final long[] PURPOSE_KEYS = new long[Purpose.values().length];
+
+    static {
+        for (int i = 0; i < PURPOSE_KEYS.length; i++) {
+            PURPOSE_KEYS[i] = mix((i + 1) * GOLDEN_GAMMA);
+        }
+    }
+
+    private final long seedKey;
+
+    /**
+     * A constructor for a new WorldRandom instance.
+     * @param seed - The seed of the world.
+     */
+    public WorldRandom(long seed) {
+        seedKey = mix(seed * GOLDEN_GAMMA);
+    }
+
+    /**
+     * @param x       - The location (usually an x-value) the value belongs to.
+     * @param purpose - What the value is drawn for.
+     * @param index   - The index of the value among the values of the same location and purpose.
+     * @return 64 random bits.
+     */
+    public long bits(long x, Purpose purpose, long index) {
+        return mix(mix(seedKey ^ PURPOSE_KEYS[purpose.ordinal()] ^ x * GOLDEN_GAMMA) + index * GOLDEN_GAMMA);
+    }
+
+    /**
+     * @param x       - The location (usually an x-value) the value belongs to.
+     * @param purpose - What the value is drawn for.
+     * @param index   - The index of the value among the values of the same location and purpose.
+     * @param bound   - The upper bound (exclusive), must be positive.
+     * @return A random int in the range [0, bound).
+     */
+    public int nextInt(long x, Purpose purpose, long index, int bound) {
+        return (int) (((bits(x, purpose, index) >>> Integer.SIZE) * bound) >>> Integer.SIZE);
+    }
+
+    /**
+     * @param x       - The location (usually an x-value) the value belongs to.
+     * @param purpose - What the value is drawn for.
+     * @param index   - The index of the value among the values of the same location and purpose.
+     * @return A random float in the range [0, 1).
+     */
+    public float nextFloat(long x, Purpose purpose, long index) {
+        return (bits(x, purpose, index) >>> FLOAT_SHIFT) * FLOAT_UNIT;
+    }
+
+    /**
+     * @param x - An x-value and a y-value of a location in the world.
+     * @param y - The y-value.
+     * @return A single key of the location, to draw values for.
+     */
+    public static long locationKey(float x, float y) {
+        return ((long) Float.floatToIntBits(x) << Integer.SIZE) | (Float.floatToIntBits(y) & 0xFFFFFFFFL);
+    }
+
+    /*
+    The SplitMix64 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -4,44 +4,46 @@ import danogl.GameObject;
 import danogl.collisions.Collision;
 import danogl.collisions.GameObjectCollection;
 import danogl.components.ScheduledTask;
-import danogl.gui.ImageReader;
-import danogl.gui.UserInputListener;
 import danogl.gui.rendering.AnimationRenderable;
 import danogl.gui.rendering.ImageRenderable;
 import danogl.gui.rendering.RectangleRenderable;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.util.InputSnapshot;
+import pepse.util.KeyInput;
+import pepse.util.Metrics;
+import pepse.util.Stage;
 
 import java.awt.*;
-import java.awt.event.KeyEvent;
 import java.security.Key;
 
 /**
  * A class of an avatar that can move around the world.
  */
 public class Avatar extends GameObject {
+
+    /*
+    The states of the avatar. A jumping avatar is in the air without flying, and is drawn standing.
+     */
+    private enum State { STANDING, WALKING, JUMPING, FLYING }
+
     private static final float VELOCITY_X = 400;
     private static final float VELOCITY_Y = -400;
     private static final float GRAVITY = 500;
-    private static final String STANDING_IMAGE = "assets/avatar/sneaky-toast-preview.png";
-    private static final int NUM_OF_WALKING_IMG = 8;
-    private static final int NUM_OF_FLYING_IMG = 4;
     private static final float MAX_ENERGY = 100f;
     private static final float ENERGY_FACTOR = 0.5f;
-    private static final double TIME_BETWEEN_CLIPS = 0.1;
     private static final String AVATAR_TAG = "Avatar";
-    private static final String END_OF_IMG_DIR = "_delay-0.1s.gif";
-    private static final String WALKING_ANIMATION_DIR = "assets/avatar/walk/frame_";
-    private static final String FLYING_ANIMATION_DIR = "assets/avatar/fly/frame_";
     private static final int AVATAR_SIZE = 100;
-
-    private static UserInputListener inputListener;
-    private static ImageReader imageReader;
-    private static Renderable standingRenderer;
-    private static AnimationRenderable walkingAnimationRenderer;
-    private static AnimationRenderable flyingAnimationRenderer;
+    private static final float STUMP_TOP_TOLERANCE = Block.SIZE * 0.5f; // how deep the avatar may sink into a stump top
 
     private float energy;
+    private KeyInput inputListener;
+    private Renderable standingRenderer;
+    private AnimationRenderable walkingAnimationRenderer;
+    private AnimationRenderable flyingAnimationRenderer;
+    private GroundContact groundContact;
+    private boolean isOnStump = false;
+    private State state = State.STANDING;
 
     /**
      * Construct a new GameObject instance.
@@ -58,28 +60,6 @@ public class Avatar extends GameObject {
         energy = MAX_ENERGY;
     }
 
-    /*
-     * Adds to the avatar the animation of his walking.
-     */
-    private static void createRenderWalkAnimation() {
-        Renderable[] walking = new Renderable[NUM_OF_WALKING_IMG];
-        for (int i = 0; i < walking.length; i++) {
-            walking[i] = imageReader.readImage(WALKING_ANIMATION_DIR + i+ END_OF_IMG_DIR, true);
-        }
-        walkingAnimationRenderer = new AnimationRenderable(walking, TIME_BETWEEN_CLIPS);
-    }
-    /*
-     *Adds to the avatar the animation of the way he flies.
-     */
-
-    private static void createRenderFlyAnimation() {
-        Renderable[] flying = new Renderable[NUM_OF_FLYING_IMG];
-        for (int i = 0; i < flying.length; i++) {
-            flying[i] = imageReader.readImage(FLYING_ANIMATION_DIR + i + END_OF_IMG_DIR,
-                    true);
-        }
-        flyingAnimationRenderer = new AnimationRenderable(flying, TIME_BETWEEN_CLIPS);
-    }
     /**
      * This function creates an avatar that can travel the world and is followed by the camera. The can stand,
      * walk, jump and fly, and never reaches the end of the world.
@@ -88,58 +68,76 @@ public class Avatar extends GameObject {
      * @param layer         - The number of the layer to which the created avatar should be added.
      * @param topLeftCorner - The location of the top-left corner of the created avatar.
      * @param inputListener - Used for reading input from the user.
-     * @param imageReader   - Used for reading images from disk or from within a jar.
+     * @param sprites       - The images of the avatar, shared with other avatar-like objects.
+     * @param groundContact - Lands the avatar on the terrain.
      * @return A newly created representing the avatar.
      */
     public static Avatar create(GameObjectCollection gameObjects, int layer, Vector2 topLeftCorner,
-                                UserInputListener inputListener, ImageReader imageReader) {
-        Avatar.inputListener = inputListener;
-        Avatar.imageReader = imageReader;
-        standingRenderer = imageReader.readImage(STANDING_IMAGE, true);
-        Avatar avatar = new Avatar(topLeftCorner, Vector2.ONES.mult(AVATAR_SIZE), standingRenderer);
+                                KeyInput inputListener, AvatarSprites sprites, GroundContact groundContact) {
+        Avatar avatar = new Avatar(topLeftCorner, Vector2.ONES.mult(AVATAR_SIZE), sprites.standing());
         gameObjects.addGameObject(avatar, layer);
         avatar.setTag(AVATAR_TAG);
-        createRenderWalkAnimation();
-        createRenderFlyAnimation();
+        avatar.inputListener = inputListener;
+        avatar.groundContact = groundContact;
+        avatar.standingRenderer = sprites.standing();
+        avatar.walkingAnimationRenderer = new AnimationRenderable(sprites.walking(), AvatarSprites.FRAME_TIME);
+        avatar.flyingAnimationRenderer = new AnimationRenderable(sprites.flying(), AvatarSprites.FRAME_TIME);
         return avatar;
     }
 
     @Override
     public void update(float deltaTime) {
+        long start = Metrics.start();
+        float previousLeft = getTopLeftCorner().x();
         super.update(deltaTime);
-        float xVel = 0;
-        if (inputListener.isKeyPressed(KeyEvent.VK_LEFT)) {
-            xVel -= VELOCITY_X;
-            if (!renderer().isFlippedHorizontally()) {
-                renderer().setIsFlippedHorizontally(true);
-            }
-            renderer().setRenderable(walkingAnimationRenderer);
+        boolean isGrounded = groundContact.resolve(this, previousLeft) || isOnStump;
+        isOnStump = false;
+        int input = InputSnapshot.capture(inputListener);
+        int direction = (InputSnapshot.isPressed(input, InputSnapshot.RIGHT) ? 1 : 0) -
+                (InputSnapshot.isPressed(input, InputSnapshot.LEFT) ? 1 : 0);
+        transform().setVelocityX(direction * VELOCITY_X);
+        if (direction != 0 && renderer().isFlippedHorizontally() != (direction < 0)) {
+            renderer().setIsFlippedHorizontally(direction < 0);
         }
-        if (inputListener.isKeyPressed(KeyEvent.VK_RIGHT)) {
-            xVel += VELOCITY_X;
-            if (renderer().isFlippedHorizontally()) {
-                renderer().setIsFlippedHorizontally(false);
-            }
-            renderer().setRenderable(walkingAnimationRenderer);
-        }
-        transform().setVelocityX(xVel);
-        if (inputListener.isKeyPressed(KeyEvent.VK_SPACE) && inputListener.isKeyPressed(KeyEvent.VK_SHIFT)) {
-            if (energy > 0) {
-                energy -= ENERGY_FACTOR;
-                transform().setVelocityY(VELOCITY_Y);
-                renderer().setRenderable(flyingAnimationRenderer);
-            }
-        } else if (this.transform().getVelocity().y() == 0 && energy < MAX_ENERGY) {
+        boolean wantsToFly = InputSnapshot.isPressed(input, InputSnapshot.SPACE | InputSnapshot.SHIFT);
+        boolean isFlying = wantsToFly && energy > 0;
+        if (isFlying) {
+            energy -= ENERGY_FACTOR;
+            transform().setVelocityY(VELOCITY_Y);
+        } else if (!wantsToFly && isGrounded && energy < MAX_ENERGY) {
             energy += ENERGY_FACTOR;
         }
-        if (inputListener.isKeyPressed(KeyEvent.VK_SPACE) && getVelocity().y() == 0) {
+        boolean isJumping = InputSnapshot.isPressed(input, InputSnapshot.SPACE) && isGrounded;
+        if (isJumping) {
             transform().setVelocityY(VELOCITY_Y);
         }
-        if (!(inputListener.isKeyPressed(KeyEvent.VK_RIGHT)) &&
-                !(inputListener.isKeyPressed(KeyEvent.VK_LEFT)) &&
-                !(inputListener.isKeyPressed(KeyEvent.VK_SPACE) &&
-                        inputListener.isKeyPressed(KeyEvent.VK_SHIFT))) {
-            renderer().setRenderable(standingRenderer);
+        if (isFlying) {
+            setState(State.FLYING);
+        } else if (isJumping || !isGrounded) {
+            setState(State.JUMPING);
+        } else {
+            setState(direction != 0 ? State.WALKING : State.STANDING);
+        }
+        Metrics.end(Stage.AVATAR_UPDATE, start);
+    }
+
+    /*
+    Moves the avatar to the given state, and swaps its renderable only if the state changed.
+     */
+    private void setState(State newState) {
+        if (newState == state) {
+            return;
+        }
+        state = newState;
+        switch (newState) {
+            case WALKING:
+                renderer().setRenderable(walkingAnimationRenderer);
+                break;
+            case FLYING:
+                renderer().setRenderable(flyingAnimationRenderer);
+                break;
+            default:
+                renderer().setRenderable(standingRenderer);
         }
     }
 
@@ -151,5 +149,22 @@ public class Avatar extends GameObject {
     public void onCollisionEnter(GameObject other, Collision collision) {
         super.onCollisionEnter(other, collision);
         this.transform().setVelocityY(0);
+        checkStandingOn(other);
+    }
+
+    @Override
+    public void onCollisionStay(GameObject other, Collision collision) {
+        super.onCollisionStay(other, collision);
+        checkStandingOn(other);
+    }
+
+    /*
+    The terrain is resolved by the ground contact, so the only collisions of the avatar are with stumps. The avatar
+    stands on a stump when its bottom touches the top of the stump, and is grounded on the next update.
+     */
+    private void checkStandingOn(GameObject other) {
+        if (getTopLeftCorner().y() + getDimensions().y() <= other.getTopLeftCorner().y() + STUMP_TOP_TOLERANCE) {
+            isOnStump = true;
+        }
     }
 }
@@ -0,0 +1,78 @@
+package pepse.world;
+
+import danogl.gui.rendering.Renderable;
+import pepse.util.ImageSource;
+
+/**
+ * The images of an avatar: standing, and the frames of its walking and flying animations. They are read once and
+ * shared by every avatar-like object, which only keeps its own animation time.
+ */
+public class AvatarSprites {
+
+    /**
+     * The time every frame of an animation is shown, in seconds.
+     */
+    public static final float FRAME_TIME = 0.1f;
+
+    private static final String STANDING_IMAGE = "assets/avatar/sneaky-toast-preview.png";
+    private static final String WALKING_ANIMATION_DIR = "assets/avatar/walk/frame_";
+    private static final String FLYING_ANIMATION_DIR = "assets/avatar/fly/frame_";
+    private static final String END_OF_IMG_DIR = "_delay-0.1s.gif";
+    private static final int NUM_OF_WALKING_IMG = 8;
+    private static final int NUM_OF_FLYING_IMG = 4;
+
+    private final Renderable standing;
+    private final Renderable[] walking;
+    private final Renderable[] flying;
+
+    /**
+     * A constructor that reads the images of an avatar.
+     * @param imageSource - Used for reading images from disk or from within a jar.
+     */
+    public AvatarSprites(ImageSource imageSource) {
+        standing = imageSource.readImage(STANDING_IMAGE, true);
+        walking = readFrames(imageSource, WALKING_ANIMATION_DIR, NUM_OF_WALKING_IMG);
+        flying = readFrames(imageSource, FLYING_ANIMATION_DIR, NUM_OF_FLYING_IMG);
+    }
+
+    /**
+     * @return The image of a standing avatar.
+     */
+    public Renderable standing() {
+        return standing;
+    }
+
+    /**
+     * @return The frames of the walking animation. The array is shared and must not be changed.
+     */
+    public Renderable[] walking() {
+        return walking;
+    }
+
+    /**
+     * @return The frames of the flying animation. The array is shared and must not be changed.
+     */
+    public Renderable[] flying() {
+        return flying;
+    }
+
+    /**
+     * @param frames - The frames of an animation.
+     * @param time   - The time since the animation started, in seconds.
+     * @return The frame of the animation shown at the given time.
+     */
+    public static Renderable frameAt(Renderable[] frames, float time) {
+        return frames[(int) (time / FRAME_TIME) % frames.length];
+    }
+
+    /*
+    Reads the numbered frames of an animation.
+     */
+    private static Renderable[] readFrames(ImageSource imageSource, String prefix, int count) {
+        Renderable[] frames = new Renderable[count];
+        for (int i = 0; i < count; i++) {
+            frames[i] = imageSource.readImage(prefix + i + END_OF_IMG_DIR, true);
+        }
+        return frames;
+    }
+}
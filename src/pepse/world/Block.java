@@ -21,4 +21,27 @@ public class Block extends GameObject {
         physics().preventIntersectionsFromDirection(Vector2.ZERO);
         physics().setMass(GameObjectPhysics.IMMOVABLE_MASS);
     }
+
+    /**
+     * Reinitializes a block that is reused from a pool.
+     *
+     * @param topLeftCorner The new position of the block, in window coordinates (pixels).
+     * @param renderable    The new renderable of the block.
+     */
+    public void reset(Vector2 topLeftCorner, Renderable renderable) {
+        reset(topLeftCorner.x(), topLeftCorner.y(), renderable);
+    }
+
+    /**
+     * Reinitializes a block that is reused from a pool, without allocating a position.
+     *
+     * @param x          The new x-value of the block's top-left corner, in window coordinates (pixels).
+     * @param y          The new y-value of the block's top-left corner, in window coordinates (pixels).
+     * @param renderable The new renderable of the block.
+     */
+    public void reset(float x, float y, Renderable renderable) {
+        transform().setTopLeftCorner(x, y);
+        setVelocity(Vector2.ZERO);
+        renderer().setRenderable(renderable);
+    }
 }
@@ -0,0 +1,134 @@
+package pepse.world;
+
+import danogl.gui.rendering.Renderable;
+
+/**
+ * A prepared description of a range of terrain columns: everything needed to create the terrain and trees of the
+ * range without evaluating the ground function or drawing random numbers again. Descriptions can be computed on any
+ * thread, and are then attached to the game by the game thread.
+ */
+public class ChunkData {
+
+    private final int minX;
+    private final int[] groundHeights;
+    private final int[] topBlockColors;
+    private final int[] treeHeights;
+    private final long[] treeColumns; // a bit per column, set where a tree is planted
+    private Renderable lowerTerrain;
+
+    /**
+     * A constructor for a new, empty ChunkData instance.
+     * @param minX    - The x-value of the first column (a multiple of Block.SIZE).
+     * @param columns - The number of columns in the range.
+     */
+    public ChunkData(int minX, int columns) {
+        this.minX = minX;
+        groundHeights = new int[columns];
+        topBlockColors = new int[columns * Terrain.COLLIDING_DEPTH];
+        treeHeights = new int[columns];
+        treeColumns = new long[(columns + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * @return The number of columns in the range.
+     */
+    public int columns() {
+        return groundHeights.length;
+    }
+
+    /**
+     * @param column - The index of a column in the range.
+     * @return The x-value of the column.
+     */
+    public int columnX(int column) {
+        return minX + column * Block.SIZE;
+    }
+
+    /**
+     * @param column - The index of a column in the range.
+     * @return The ground height of the column.
+     */
+    public int groundHeight(int column) {
+        return groundHeights[column];
+    }
+
+    /**
+     * @param column - The index of a column in the range.
+     * @param height - The ground height of the column.
+     */
+    public void setGroundHeight(int column, int height) {
+        groundHeights[column] = height;
+    }
+
+    /**
+     * @param column - The index of a column in the range.
+     * @param depth  - The depth of a colliding block in the column.
+     * @return The palette index of the block's color.
+     */
+    public int topBlockColor(int column, int depth) {
+        return topBlockColors[column * Terrain.COLLIDING_DEPTH + depth];
+    }
+
+    /**
+     * @param column       - The index of a column in the range.
+     * @param depth        - The depth of a colliding block in the column.
+     * @param paletteIndex - The palette index of the block's color.
+     */
+    public void setTopBlockColor(int column, int depth, int paletteIndex) {
+        topBlockColors[column * Terrain.COLLIDING_DEPTH + depth] = paletteIndex;
+    }
+
+    /**
+     * @return The baked image of the non-colliding part of the terrain of the range.
+     */
+    public Renderable lowerTerrain() {
+        return lowerTerrain;
+    }
+
+    /**
+     * @param lowerTerrain - The baked image of the non-colliding part of the terrain of the range.
+     */
+    public void setLowerTerrain(Renderable lowerTerrain) {
+        this.lowerTerrain = lowerTerrain;
+    }
+
+    /**
+     * @param column - The index of a column in the range.
+     * @return The height (in blocks) of the tree planted in the column, or 0 if there is none.
+     */
+    public int treeHeight(int column) {
+        return treeHeights[column];
+    }
+
+    /**
+     * @param column - The index of a column in the range.
+     * @param height - The height (in blocks) of the tree planted in the column, or 0 if there is none.
+     */
+    public void setTreeHeight(int column, int height) {
+        treeHeights[column] = height;
+        if (height > 0) {
+            treeColumns[column / Long.SIZE] |= 1L << column;
+        } else {
+            treeColumns[column / Long.SIZE] &= ~(1L << column);
+        }
+    }
+
+    /**
+     * @param from - The index of a column in the range.
+     * @return The index of the first column from the given one (inclusive) with a tree, or -1 if there is none.
+     */
+    public int nextTreeColumn(int from) {
+        int word = from / Long.SIZE;
+        if (word >= treeColumns.length) {
+            return -1;
+        }
+        long bits = treeColumns[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == treeColumns.length) {
+                return -1;
+            }
+            bits = treeColumns[word];
+        }
+        return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+    }
+}
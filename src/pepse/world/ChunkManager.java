@@ -0,0 +1,163 @@
+package pepse.world;
+
+import pepse.util.Metrics;
+import pepse.util.Stage;
+import pepse.world.trees.Tree;
+
+/**
+ * Streams the world in fixed-width chunks around a moving center (usually the avatar the camera follows).
+ * Every chunk owns the terrain and trees created in its x-range, and is always created and removed as a whole,
+ * so the cost of streaming depends only on the chunks that enter or leave the loaded window.
+ */
+public class ChunkManager {
+
+    /**
+     * The number of terrain columns in a single chunk.
+     */
+    public static final int CHUNK_COLUMNS = 8;
+
+    /**
+     * The width of a single chunk in pixels.
+     */
+    public static final int CHUNK_WIDTH = CHUNK_COLUMNS * Block.SIZE;
+
+    private static final int PREFETCH_CHUNKS = 2; // chunks prepared ahead in the direction of travel
+
+    private final Terrain terrain;
+    private final Tree tree;
+    private final WorldGenerator generator;
+    private final float loadRadius;
+    private float lastCenterX;
+    private boolean isLoaded = false;
+    private int firstLoadedChunk;
+    private int lastLoadedChunk;
+    private long chunksLoaded = 0;
+
+    /**
+     * A constructor for a new ChunkManager instance.
+     * @param terrain    - The terrain whose columns are streamed.
+     * @param tree       - The trees that are streamed together with the terrain.
+     * @param loadRadius - The distance (in pixels) from the center to each side that must always be loaded.
+     * @param store      - Keeps the descriptions of generated chunks on disk, or null to always generate them.
+     */
+    public ChunkManager(Terrain terrain, Tree tree, float loadRadius, ChunkStore store) {
+        this.terrain = terrain;
+        this.tree = tree;
+        this.loadRadius = loadRadius;
+        generator = new WorldGenerator(terrain, tree, store);
+    }
+
+    /**
+     * This method returns the index of the chunk containing the given x-value.
+     * @param x - A location in world coordinates.
+     * @return The index of the chunk that contains x.
+     */
+    public static int chunkIndexOf(float x) {
+        return Math.floorDiv((int) Math.floor(x), CHUNK_WIDTH);
+    }
+
+    /**
+     * This method loads every chunk that entered the radius around the given center, and unloads every chunk that
+     * left it. Chunks ahead of the center in its direction of travel are prepared in the background.
+     * @param centerX - The x-value around which the world should be loaded.
+     */
+    public void update(float centerX) {
+        float direction = isLoaded ? centerX - lastCenterX : 0;
+        lastCenterX = centerX;
+        int first = chunkIndexOf(centerX - loadRadius);
+        int last = chunkIndexOf(centerX + loadRadius);
+        if (!isLoaded || last < firstLoadedChunk || first > lastLoadedChunk) {
+            unloadAll();
+            for (int chunk = first; chunk <= last; chunk++) {
+                generator.prefetch(chunk); // the whole window is described in parallel, and then attached
+            }
+            for (int chunk = first; chunk <= last; chunk++) {
+                loadChunk(chunk);
+            }
+        } else {
+            for (int chunk = firstLoadedChunk; chunk < first; chunk++) {
+                unloadChunk(chunk);
+            }
+            for (int chunk = lastLoadedChunk; chunk > last; chunk--) {
+                unloadChunk(chunk);
+            }
+            for (int chunk = first; chunk < firstLoadedChunk; chunk++) {
+                loadChunk(chunk);
+            }
+            for (int chunk = lastLoadedChunk + 1; chunk <= last; chunk++) {
+                loadChunk(chunk);
+            }
+        }
+        firstLoadedChunk = first;
+        lastLoadedChunk = last;
+        isLoaded = true;
+        prefetch(direction);
+    }
+
+    /**
+     * @return The number of chunks loaded since the manager was created.
+     */
+    public long chunksLoaded() {
+        return chunksLoaded;
+    }
+
+    /**
+     * This method stops the background generation of chunks.
+     */
+    public void shutdown() {
+        generator.shutdown();
+    }
+
+    /*
+    Prepares the chunks that are about to be loaded when moving in the given direction (or on both sides when not
+    moving), and drops prepared chunks that are no longer close.
+     */
+    private void prefetch(float direction) {
+        generator.discardOutside(firstLoadedChunk - PREFETCH_CHUNKS, lastLoadedChunk + PREFETCH_CHUNKS);
+        for (int i = 1; i <= PREFETCH_CHUNKS; i++) {
+            if (direction >= 0) {
+                generator.prefetch(lastLoadedChunk + i);
+            }
+            if (direction <= 0) {
+                generator.prefetch(firstLoadedChunk - i);
+            }
+        }
+    }
+
+    /*
+    Removes every loaded chunk from the game.
+     */
+    private void unloadAll() {
+        if (isLoaded) {
+            for (int chunk = firstLoadedChunk; chunk <= lastLoadedChunk; chunk++) {
+                unloadChunk(chunk);
+            }
+        }
+        isLoaded = false;
+    }
+
+    /*
+    Creates the terrain and trees of a single chunk from its prepared description.
+     */
+    private void loadChunk(int chunk) {
+        ChunkData data = generator.take(chunk);
+        long start = Metrics.start();
+        terrain.createFromData(data);
+        Metrics.end(Stage.TERRAIN_GENERATION, start);
+        start = Metrics.start();
+        tree.createFromData(data);
+        Metrics.end(Stage.TREE_BUILDING, start);
+        chunksLoaded++;
+    }
+
+    /*
+    Removes the terrain and trees of a single chunk.
+     */
+    private void unloadChunk(int chunk) {
+        long start = Metrics.start();
+        int minX = chunk * CHUNK_WIDTH;
+        tree.deleteInRange(minX, minX + CHUNK_WIDTH);
+        terrain.deleteInRange(minX, minX + CHUNK_WIDTH);
+        Metrics.end(Stage.CHUNK_REMOVAL, start);
+    }
+}
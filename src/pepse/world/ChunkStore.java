@@ -0,0 +1,178 @@
+package pepse.world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A persistent cache of chunk descriptions on disk, so that chunks that were generated once (in this run or an
+ * earlier one) are read back instead of generated again. Chunks are grouped into region files of REGION_CHUNKS
+ * chunks per seed, world and base height of the terrain (the stored heights are absolute, and the base height
+ * follows the window height), and every region file is memory-mapped, so reading a chunk is a few reads from memory.
+ * Every file starts with a header of a magic number, a format version, its geometry and the base height. A file
+ * whose header does not match (an older format, another chunk size or another base height) is discarded and rebuilt,
+ * so format changes never read stale data.
+ * Each column is stored as a compact record: its ground height in blocks (2 bytes), the height of its tree in blocks
+ * (1 byte, 0 for no tree) and the palette indices of its top blocks (1 byte each).
+ * The store can be used from any thread. If the disk fails, the store stops caching and every lookup misses.
+ */
+public class ChunkStore {
+
+    private static final int MAGIC = 0x50455053; // "PEPS"
+    private static final int VERSION = 4; // 2: colors and trees drawn by WorldRandom, 3: base height in the header,
+    // 4: heights rounded like the original terrain
+    private static final int REGION_CHUNKS = 64;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+    private static final int COLUMN_BYTES = Short.BYTES + Byte.BYTES + Terrain.COLLIDING_DEPTH * Byte.BYTES;
+    private static final int CHUNK_BYTES = Byte.BYTES + ChunkManager.CHUNK_COLUMNS * COLUMN_BYTES;
+    private static final int REGION_BYTES = HEADER_BYTES + REGION_CHUNKS * CHUNK_BYTES;
+    private static final byte PRESENT = 1;
+    private static final String REGION_FILE_FORMAT = "%s-%d-h%d-r%d.chunks";
+
+    private final Path directory;
+    private final int seed;
+    private final String worldName;
+    private final int baseHeight;
+    private final Map<Integer, MappedByteBuffer> regions = new HashMap<>();
+    private boolean failed = false;
+
+    /**
+     * A constructor for a new ChunkStore instance.
+     * @param directory - The directory of the region files (created if needed).
+     * @param seed      - The seed of the world.
+     * @param worldName - A name of the way the world is generated (e.g. its noise), so different worlds with the
+     *                  same seed are stored separately.
+     * @param baseHeight - The base height of the terrain, which the stored ground heights are computed from, so
+     *                   worlds created in windows of different heights are stored separately.
+     */
+    public ChunkStore(Path directory, int seed, String worldName, int baseHeight) {
+        this.directory = directory;
+        this.seed = seed;
+        this.worldName = worldName;
+        this.baseHeight = baseHeight;
+    }
+
+    /**
+     * This method reads a stored chunk description.
+     * @param chunk - The index of the chunk.
+     * @param data  - The description to fill with the stored terrain columns and trees (without the baked lower
+     *              terrain, which is derived from them).
+     * @return true if the chunk was stored and data was filled, false otherwise.
+     */
+    public synchronized boolean load(int chunk, ChunkData data) {
+        ByteBuffer region = regionOf(chunk);
+        if (region == null) {
+            return false;
+        }
+        int offset = chunkOffset(chunk);
+        if (region.get(offset) != PRESENT) {
+            return false;
+        }
+        offset += Byte.BYTES;
+        for (int c = 0; c < data.columns(); c++) {
+            data.setGroundHeight(c, region.getShort(offset) * Block.SIZE);
+            data.setTreeHeight(c, region.get(offset + Short.BYTES));
+            for (int i = 0; i < Terrain.COLLIDING_DEPTH; i++) {
+                data.setTopBlockColor(c, i, region.get(offset + Short.BYTES + Byte.BYTES + i));
+            }
+            offset += COLUMN_BYTES;
+        }
+        return true;
+    }
+
+    /**
+     * This method stores a chunk description.
+     * @param chunk - The index of the chunk.
+     * @param data  - A complete description of the chunk.
+     */
+    public synchronized void save(int chunk, ChunkData data) {
+        ByteBuffer region = regionOf(chunk);
+        if (region == null) {
+            return;
+        }
+        int flagOffset = chunkOffset(chunk);
+        int offset = flagOffset + Byte.BYTES;
+        for (int c = 0; c < data.columns(); c++) {
+            region.putShort(offset, (short) (data.groundHeight(c) / Block.SIZE));
+            region.put(offset + Short.BYTES, (byte) data.treeHeight(c));
+            for (int i = 0; i < Terrain.COLLIDING_DEPTH; i++) {
+                region.put(offset + Short.BYTES + Byte.BYTES + i, (byte) data.topBlockColor(c, i));
+            }
+            offset += COLUMN_BYTES;
+        }
+        region.put(flagOffset, PRESENT); // written last, so a chunk is never read half written
+    }
+
+    /*
+    Returns the offset of a chunk's slot in its region.
+     */
+    private static int chunkOffset(int chunk) {
+        return HEADER_BYTES + Math.floorMod(chunk, REGION_CHUNKS) * CHUNK_BYTES;
+    }
+
+    /*
+    Returns the mapped region file of a chunk, opening (and if needed creating or rebuilding) it on first use, or
+    null if the store failed.
+     */
+    private ByteBuffer regionOf(int chunk) {
+        if (failed) {
+            return null;
+        }
+        int region = Math.floorDiv(chunk, REGION_CHUNKS);
+        MappedByteBuffer buffer = regions.get(region);
+        if (buffer == null) {
+            try {
+                buffer = mapRegion(region);
+            } catch (IOException e) {
+                System.err.println("Chunk store disabled: " + e.getMessage());
+                failed = true;
+                return null;
+            }
+            regions.put(region, buffer);
+        }
+        return buffer;
+    }
+
+    /*
+    Maps a region file into memory. A new file, or a file with an unexpected header, is reset to an empty region.
+     */
+    private MappedByteBuffer mapRegion(int region) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format(REGION_FILE_FORMAT, worldName, seed, baseHeight, region));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            boolean isValid = channel.size() == REGION_BYTES;
+            if (!isValid) {
+                channel.truncate(0);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_BYTES);
+            if (!isValid || !hasValidHeader(buffer)) {
+                for (int i = 0; i < REGION_BYTES; i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(Integer.BYTES, VERSION);
+                buffer.putInt(2 * Integer.BYTES, ChunkManager.CHUNK_COLUMNS);
+                buffer.putInt(3 * Integer.BYTES, REGION_CHUNKS);
+                buffer.putInt(4 * Integer.BYTES, baseHeight);
+            }
+            return buffer;
+        }
+    }
+
+    /*
+    Checks that a region was written in the current format and geometry, from the same base height.
+     */
+    private boolean hasValidHeader(ByteBuffer buffer) {
+        return buffer.getInt(0) == MAGIC && buffer.getInt(Integer.BYTES) == VERSION &&
+                buffer.getInt(2 * Integer.BYTES) == ChunkManager.CHUNK_COLUMNS &&
+                buffer.getInt(3 * Integer.BYTES) == REGION_CHUNKS &&
+                buffer.getInt(4 * Integer.BYTES) == baseHeight;
+    }
+}
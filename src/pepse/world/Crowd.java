@@ -0,0 +1,222 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.Metrics;
+import pepse.util.Stage;
+import pepse.util.WorldRandom;
+
+import java.awt.*;
+
+/**
+ * A stress scene of many autonomous avatar-like agents that wander around their home, walking and jumping at random.
+ * The agents are kept in primitive arrays (one entry per agent in each array), and their movement, gravity and
+ * contact with the ground are advanced in a single loop per frame. The whole crowd is a single game object whose
+ * renderable draws every agent with the shared avatar images, so an agent costs no game object, components or
+ * collision checks. The crowd is used by the game thread only.
+ */
+public class Crowd extends GameObject {
+
+    private static final float AGENT_SIZE = 50;
+    private static final float VELOCITY_X = 200;
+    private static final float VELOCITY_Y = -400;
+    private static final float GRAVITY = 500;
+    private static final float MIN_DECISION_TIME = 0.5f;
+    private static final float DECISION_TIME_RANGE = 2f;
+    private static final int DIRECTIONS = 3; // left, none and right
+    private static final int JUMP_CHANCE_BOUND = 4; // one decision in JUMP_CHANCE_BOUND is a jump
+    private static final int DRAWS_PER_DECISION = 3;
+    private static final Vector2 AGENT_DIMENSIONS = Vector2.ONES.mult(AGENT_SIZE);
+
+    private final AvatarSprites sprites;
+    private final GroundContact groundContact;
+    private final LevelOfDetail levelOfDetail;
+    private final WorldRandom worldRandom;
+    private final float homeX;
+    private final float homeRadius;
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityY;
+    private final float[] decisionTimeLeft;
+    private final float[] animationTime;
+    private final float[] skippedTime;
+    private final int[] decisions;
+    private final byte[] direction;
+    private final boolean[] isFacingLeft;
+    private final boolean[] isGrounded;
+    private int frameCount = 0;
+    private float boundsMinX;
+    private float boundsMinY;
+
+    /**
+     * A constructor for a new Crowd instance. The agents start on the ground, spread evenly around their home. The
+     * crowd should be added to the game in a layer that collides with nothing.
+     * @param agents        - The number of agents.
+     * @param homeX         - The x-value of the center of the home.
+     * @param homeRadius    - The distance from the center the agents wander up to.
+     * @param sprites       - The images of the agents, shared with the avatar.
+     * @param groundContact - Lands the agents on the terrain.
+     * @param levelOfDetail - Decides how often every agent is simulated, by its distance from the camera.
+     * @param worldRandom   - Draws the decisions of the agents.
+     */
+    public Crowd(int agents, float homeX, float homeRadius, AvatarSprites sprites, GroundContact groundContact,
+                 LevelOfDetail levelOfDetail, WorldRandom worldRandom) {
+        super(Vector2.ZERO, Vector2.ONES, null);
+        this.sprites = sprites;
+        this.groundContact = groundContact;
+        this.levelOfDetail = levelOfDetail;
+        this.worldRandom = worldRandom;
+        this.homeX = homeX;
+        this.homeRadius = homeRadius;
+        x = new float[agents];
+        y = new float[agents];
+        velocityY = new float[agents];
+        decisionTimeLeft = new float[agents];
+        animationTime = new float[agents];
+        skippedTime = new float[agents];
+        decisions = new int[agents];
+        direction = new byte[agents];
+        isFacingLeft = new boolean[agents];
+        isGrounded = new boolean[agents];
+        for (int agent = 0; agent < agents; agent++) {
+            x[agent] = homeX - homeRadius + 2 * homeRadius * (agent + 0.5f) / agents;
+            y[agent] = groundContact.groundUnder(x[agent], AGENT_SIZE) - AGENT_SIZE;
+            isGrounded[agent] = true;
+        }
+        renderer().setRenderable(new CrowdRenderable());
+    }
+
+    /**
+     * @return The number of agents in the crowd.
+     */
+    public int agentCount() {
+        return x.length;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        long start = Metrics.start();
+        super.update(deltaTime);
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        int updated = 0;
+        frameCount++;
+        for (int agent = 0; agent < x.length; agent++) {
+            float agentDeltaTime = agentDeltaTime(agent, deltaTime);
+            if (agentDeltaTime > 0) {
+                advance(agent, agentDeltaTime);
+                updated++;
+            }
+            minX = Math.min(minX, x[agent]);
+            minY = Math.min(minY, y[agent]);
+            maxX = Math.max(maxX, x[agent]);
+            maxY = Math.max(maxY, y[agent]);
+        }
+        if (x.length > 0) {
+            boundsMinX = minX;
+            boundsMinY = minY;
+            setTopLeftCorner(new Vector2(minX, minY));
+            setDimensions(new Vector2(maxX + AGENT_SIZE - minX, maxY + AGENT_SIZE - minY));
+        }
+        Metrics.agentsUpdated(updated);
+        Metrics.end(Stage.CROWD_UPDATE, start);
+    }
+
+    /*
+    Returns the time to advance an agent by in this frame, according to the level of detail at the agent, like the
+    crowns of the foliage: the frame's time in full detail, the time accumulated over the last few frames once every
+    few frames in reduced detail (the agents take turns, to spread the work), and 0 otherwise.
+     */
+    private float agentDeltaTime(int agent, float deltaTime) {
+        LevelOfDetail.Detail detail = levelOfDetail.detailAt(x[agent]);
+        if (detail == LevelOfDetail.Detail.FROZEN) {
+            return 0;
+        }
+        skippedTime[agent] += deltaTime;
+        if (detail == LevelOfDetail.Detail.REDUCED &&
+                (frameCount + agent) % LevelOfDetail.REDUCED_UPDATE_INTERVAL != 0) {
+            return 0;
+        }
+        float agentDeltaTime = skippedTime[agent];
+        skippedTime[agent] = 0;
+        return agentDeltaTime;
+    }
+
+    /*
+    Advances a single agent: its decision of where to go, its horizontal movement, gravity, and the landing on the
+    ground - the same rules the avatar follows, without collisions. An agent that reaches the edge of its home, or
+    ground higher than a single step, turns back.
+     */
+    private void advance(int agent, float deltaTime) {
+        decisionTimeLeft[agent] -= deltaTime;
+        if (decisionTimeLeft[agent] <= 0) {
+            decide(agent);
+        }
+        if ((x[agent] - homeX) * direction[agent] > homeRadius) {
+            direction[agent] = (byte) -direction[agent];
+            isFacingLeft[agent] = direction[agent] < 0;
+        }
+        float nextX = x[agent] + direction[agent] * VELOCITY_X * deltaTime;
+        if (groundContact.isBlocked(nextX, AGENT_SIZE, y[agent] + AGENT_SIZE)) {
+            direction[agent] = (byte) -direction[agent];
+            isFacingLeft[agent] = direction[agent] < 0;
+        } else {
+            x[agent] = nextX;
+        }
+        velocityY[agent] += GRAVITY * deltaTime;
+        y[agent] += velocityY[agent] * deltaTime;
+        float ground = groundContact.groundUnder(x[agent], AGENT_SIZE);
+        isGrounded[agent] = y[agent] + AGENT_SIZE >= ground && velocityY[agent] >= 0;
+        if (isGrounded[agent]) {
+            y[agent] = ground - AGENT_SIZE;
+            velocityY[agent] = 0;
+        }
+        animationTime[agent] = direction[agent] != 0 ? animationTime[agent] + deltaTime : 0;
+    }
+
+    /*
+    Draws the next decision of an agent: a direction, whether to jump, and how long until the next decision.
+     */
+    private void decide(int agent) {
+        long draw = (long) decisions[agent]++ * DRAWS_PER_DECISION;
+        int newDirection = worldRandom.nextInt(agent, WorldRandom.Purpose.CROWD_DECISION, draw, DIRECTIONS) - 1;
+        direction[agent] = (byte) newDirection;
+        if (newDirection != 0) {
+            isFacingLeft[agent] = newDirection < 0;
+        }
+        if (isGrounded[agent] &&
+                worldRandom.nextInt(agent, WorldRandom.Purpose.CROWD_DECISION, draw + 1, JUMP_CHANCE_BOUND) == 0) {
+            velocityY[agent] = VELOCITY_Y;
+            isGrounded[agent] = false;
+        }
+        decisionTimeLeft[agent] = MIN_DECISION_TIME +
+                DECISION_TIME_RANGE * worldRandom.nextFloat(agent, WorldRandom.Purpose.CROWD_DECISION, draw + 2);
+    }
+
+    /*
+    Draws every agent that is on screen, with the shared image of its state and its own animation time.
+     */
+    private class CrowdRenderable implements Renderable {
+
+        @Override
+        public void render(Graphics2D g, Vector2 topLeftCorner, Vector2 dimensions, double degreesCounterClockwise,
+                           boolean isFlippedHorizontally, boolean isFlippedVertically, double opaqueness) {
+            long start = Metrics.start();
+            float offsetX = topLeftCorner.x() - boundsMinX;
+            float offsetY = topLeftCorner.y() - boundsMinY;
+            for (int agent = 0; agent < x.length; agent++) {
+                if (levelOfDetail.detailAt(x[agent]) != LevelOfDetail.Detail.FULL) {
+                    continue;
+                }
+                Renderable image = !isGrounded[agent] || direction[agent] == 0 ? sprites.standing() :
+                        AvatarSprites.frameAt(sprites.walking(), animationTime[agent]);
+                image.render(g, new Vector2(x[agent] + offsetX, y[agent] + offsetY), AGENT_DIMENSIONS, 0,
+                        isFacingLeft[agent], false, opaqueness);
+            }
+            Metrics.end(Stage.CROWD_RENDER, start);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+/**
+ * Resolves contact between moving objects and the ground analytically, against the height field of the terrain,
+ * instead of through collisions with the terrain blocks. A query only reads the heights of the columns under the
+ * object, so its cost does not depend on how many terrain blocks are loaded.
+ */
+public class GroundContact {
+
+    private static final float MAX_STEP_HEIGHT = Block.SIZE; // the highest ledge an object walks up onto
+    private static final float STEP_TOLERANCE = Block.SIZE * 0.5f; // how deep an object may sink into the ground
+
+    private final HeightCache heights;
+
+    /**
+     * A constructor for a new GroundContact instance.
+     * @param heights - The ground heights of the terrain columns.
+     */
+    public GroundContact(HeightCache heights) {
+        this.heights = heights;
+    }
+
+    /**
+     * This method returns the highest ground under a horizontal span, i.e. the ground an object spanning it
+     * would land on.
+     * @param left  - The left edge of the span.
+     * @param width - The width of the span.
+     * @return The smallest ground height (the highest ground on screen) of the columns under the span.
+     */
+    public float groundUnder(float left, float width) {
+        int firstColumn = Math.floorDiv((int) Math.floor(left), Block.SIZE);
+        int lastColumn = Math.floorDiv((int) Math.ceil(left + width) - 1, Block.SIZE);
+        float ground = heights.heightOfColumn(firstColumn);
+        for (int column = firstColumn + 1; column <= lastColumn; column++) {
+            ground = Math.min(ground, heights.heightOfColumn(column));
+        }
+        return ground;
+    }
+
+    /**
+     * This method tells whether the ground under a horizontal span rises above the given bottom by more than a
+     * single step, i.e. whether an object with that bottom faces a wall there rather than a step it can walk onto.
+     * @param left   - The left edge of the span.
+     * @param width  - The width of the span.
+     * @param bottom - The y-value of the bottom of the object.
+     * @return True if the ground is too high to step onto, false otherwise.
+     */
+    public boolean isBlocked(float left, float width, float bottom) {
+        return bottom - groundUnder(left, width) > MAX_STEP_HEIGHT + STEP_TOLERANCE;
+    }
+
+    /**
+     * This method resolves the contact of the given object with the ground after it moved. An object that moved
+     * into ground higher than a single step is stopped: it is moved back to its previous x-value and its horizontal
+     * velocity is zeroed. Then, an object whose bottom is at or below the ground and that is not moving up is
+     * placed on the ground and its vertical velocity is zeroed.
+     * @param gameObject   - The object to resolve.
+     * @param previousLeft - The x-value of the object's left edge before it moved.
+     * @return True if the object is on the ground, false otherwise.
+     */
+    public boolean resolve(GameObject gameObject, float previousLeft) {
+        Vector2 topLeft = gameObject.getTopLeftCorner();
+        Vector2 dimensions = gameObject.getDimensions();
+        float left = topLeft.x();
+        float bottom = topLeft.y() + dimensions.y();
+        if (left != previousLeft && isBlocked(left, dimensions.x(), bottom)) {
+            left = previousLeft;
+            gameObject.setTopLeftCorner(new Vector2(left, topLeft.y()));
+            gameObject.transform().setVelocityX(0);
+        }
+        float ground = groundUnder(left, dimensions.x());
+        if (bottom < ground || gameObject.getVelocity().y() < 0) {
+            return false;
+        }
+        gameObject.setTopLeftCorner(new Vector2(left, ground - dimensions.y()));
+        gameObject.transform().setVelocityY(0);
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+package pepse.world;
+
+import java.util.Arrays;
+
+/**
+ * A ring buffer of the ground heights of terrain columns, indexed by column. A column's slot is only overwritten by
+ * a column that is a whole buffer away, so as long as the buffer is wider than the loaded window, every column in the
+ * window is evaluated once and then served from the buffer until the window slides past it.
+ * The cache is not thread safe and is meant to be used by the game thread.
+ */
+public class HeightCache implements HeightFunction {
+
+    private static final int EMPTY_SLOT = Integer.MIN_VALUE;
+
+    private final HeightFunction heightFunction;
+    private final float[] heights;
+    private final int[] columns;
+    private final int slotMask;
+
+    /**
+     * A constructor for a new HeightCache instance.
+     * @param heightFunction - Evaluates the height of a column that is not in the cache.
+     * @param minCapacity    - The minimal number of columns the cache holds (rounded up to a power of two).
+     */
+    public HeightCache(HeightFunction heightFunction, int minCapacity) {
+        this.heightFunction = heightFunction;
+        int capacity = Integer.highestOneBit(Math.max(1, minCapacity - 1)) << 1;
+        heights = new float[capacity];
+        columns = new int[capacity];
+        Arrays.fill(columns, EMPTY_SLOT);
+        slotMask = capacity - 1;
+    }
+
+    /**
+     * This method returns the ground height of the column that contains the given x-value.
+     * @param x - A location in world coordinates.
+     * @return The ground height of the column containing x.
+     */
+    @Override
+    public float heightAt(float x) {
+        return heightOfColumn(Math.floorDiv((int) Math.floor(x), Block.SIZE));
+    }
+
+    /**
+     * @param column - The index of a column (its x-value divided by Block.SIZE).
+     * @return The ground height of the column.
+     */
+    public float heightOfColumn(int column) {
+        int slot = column & slotMask;
+        if (columns[slot] != column) {
+            heights[slot] = heightFunction.heightAt((float) column * Block.SIZE);
+            columns[slot] = column;
+        }
+        return heights[slot];
+    }
+
+    /**
+     * This method stores a height that was already evaluated elsewhere, e.g. by a background generator.
+     * @param column - The index of a column (its x-value divided by Block.SIZE).
+     * @param height - The ground height of the column.
+     */
+    public void put(int column, float height) {
+        int slot = column & slotMask;
+        heights[slot] = height;
+        columns[slot] = column;
+    }
+}
@@ -0,0 +1,14 @@
+package pepse.world;
+
+/**
+ * The ground height as a function of x, specialized for primitive floats so that querying it never boxes.
+ */
+@FunctionalInterface
+public interface HeightFunction {
+
+    /**
+     * @param x - A location in world coordinates.
+     * @return The ground height at the given location.
+     */
+    float heightAt(float x);
+}
@@ -0,0 +1,61 @@
+package pepse.world;
+
+/**
+ * Decides how much simulation an object gets by its horizontal distance from the camera. Objects on screen are
+ * simulated every frame, objects in the off-screen margin are simulated every few frames with the accumulated time,
+ * and objects beyond it are frozen until they come closer. Since reduced objects catch up on the time they skipped
+ * and frozen objects simply pause, objects resume seamlessly when they come into view.
+ */
+public class LevelOfDetail {
+
+    /**
+     * The level of detail of an object.
+     */
+    public enum Detail {
+        /** Simulated every frame. */
+        FULL,
+        /** Simulated every REDUCED_UPDATE_INTERVAL frames, with the time accumulated since the last update. */
+        REDUCED,
+        /** Not simulated. */
+        FROZEN
+    }
+
+    /**
+     * The number of frames between two updates of an object in reduced detail.
+     */
+    public static final int REDUCED_UPDATE_INTERVAL = 4;
+
+    private final float fullRadius;
+    private final float reducedRadius;
+    private float centerX;
+
+    /**
+     * A constructor for a new LevelOfDetail instance.
+     * @param fullRadius    - The distance from the camera within which objects are in full detail.
+     * @param reducedRadius - The distance from the camera within which objects are in reduced detail.
+     */
+    public LevelOfDetail(float fullRadius, float reducedRadius) {
+        this.fullRadius = fullRadius;
+        this.reducedRadius = reducedRadius;
+    }
+
+    /**
+     * This method moves the camera the distances are measured from. It is called once per frame.
+     * @param centerX - The x-value of the center of the camera.
+     */
+    public void setCenter(float centerX) {
+        this.centerX = centerX;
+    }
+
+    /**
+     * @param x - A location in world coordinates.
+     * @return The level of detail of an object at the given location.
+     */
+    public Detail detailAt(float x) {
+        float distance = Math.abs(x - centerX);
+        if (distance <= fullRadius) {
+            return Detail.FULL;
+        }
+        return distance <= reducedRadius ? Detail.REDUCED : Detail.FROZEN;
+    }
+}
@@ -9,6 +9,7 @@ import danogl.util.Vector2;
 public class NumericEnergyCounter extends GameObject{
     private final TextRenderable text;
     private final Avatar avatar;
+    private int shownTenths;
 
 
     /**
@@ -21,7 +22,8 @@ public class NumericEnergyCounter extends GameObject{
     public NumericEnergyCounter(Vector2 topLeftCorner, Vector2 dimensions, GameObjectCollection gameObjects ,Avatar avatar, int layer) {
         super(topLeftCorner, dimensions, null);
         this.avatar = avatar;
-        text = new TextRenderable(String.format("%.1f", this.avatar.getEnergy()));
+        shownTenths = tenthsOf(avatar.getEnergy());
+        text = new TextRenderable(format(shownTenths));
         GameObject numericEnergy = new GameObject(topLeftCorner, dimensions, text);
         numericEnergy.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         gameObjects.addGameObject(numericEnergy, layer);
@@ -30,6 +32,24 @@ public class NumericEnergyCounter extends GameObject{
     @Override
     public void update(float deltaTime) {
         super.update(deltaTime);
-        text.setString(String.format("%.1f", this.avatar.getEnergy()));
+        int tenths = tenthsOf(avatar.getEnergy());
+        if (tenths != shownTenths) {
+            shownTenths = tenths;
+            text.setString(format(tenths));
+        }
+    }
+
+    /*
+    Rounds the energy to tenths, the precision it is shown in.
+     */
+    private static int tenthsOf(float energy) {
+        return Math.round(energy * 10);
+    }
+
+    /*
+    Formats a non-negative number of tenths with a single decimal digit, like "%.1f".
+     */
+    private static String format(int tenths) {
+        return tenths / 10 + "." + tenths % 10;
     }
 }
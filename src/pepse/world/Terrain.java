@@ -1,10 +1,15 @@
 package pepse.world;
 
+import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.gui.rendering.RectangleRenderable;
-import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
-import pepse.util.ColorSupplier;
+import pepse.util.ColorPalette;
+import pepse.util.Metrics;
+import pepse.util.NoiseGenerator;
+import pepse.util.ObjectMapping;
+import pepse.util.ObjectPool;
+import pepse.util.SineNoise;
+import pepse.util.WorldRandom;
 
 import java.awt.*;
 import java.util.Random;
@@ -20,15 +25,26 @@ public class Terrain {
     private static final float AVERAGE_HEIGHT_FACTOR = (float) (2.0 / 3);
     private static final int ALTITUDE_FACTOR = 2;
     private static final int LAYER_DIFFERENCE = 5;
+    static final int COLLIDING_DEPTH = 2; // the number of top blocks in a column that collide
+    private static final ColorPalette GROUND_PALETTE = ColorPalette.of(BASE_GROUND_COLOR);
+    private static final int MAX_POOLED_BLOCKS = 1024;
+    private static final int MAX_POOLED_LOWER_TERRAINS = 64;
+    private static final int CACHED_LOWER_TERRAINS = 64; // baked chunk images kept after their chunk is unloaded
+    private static final int CACHE_MARGIN_COLUMNS = 64; // cached columns beyond each side of the window
 
     private final GameObjectCollection gameObjects;
     private final int groundLayer;
     private final Vector2 windowDimensions;
-    private final int seed;
-    private final Random random;
-    private final float sinFactor;
-    private final float piFactor;
+    private final WorldRandom worldRandom;
+    private final NoiseGenerator noise;
+    private final float altitude;
     private final int start_height;
+    private final ObjectMapping columnObjects = new ObjectMapping();
+    private final HeightCache heightCache;
+    private final ObjectPool<Block> blockPool = new ObjectPool<>(Terrain::newBlock, MAX_POOLED_BLOCKS);
+    private final ObjectPool<GameObject> lowerTerrainPool =
+            new ObjectPool<>(Terrain::newLowerTerrain, MAX_POOLED_LOWER_TERRAINS);
+    private final TerrainRaster raster;
 
 
     /**
@@ -39,28 +55,86 @@ public class Terrain {
      * @param seed             - A seed for a random number generator.
      */
     public Terrain(GameObjectCollection gameObjects, int groundLayer, Vector2 windowDimensions, int seed) {
+        this(gameObjects, groundLayer, windowDimensions, seed, sineNoise(seed));
+    }
+
+    /**
+     * A constructor for a new Terrain instance, shaped by the given noise.
+     * @param gameObjects      - The collection of all participating game objects.
+     * @param groundLayer      - The number of the layer to which the created ground objects should be added.
+     * @param windowDimensions - The dimensions of the windows.
+     * @param seed             - A seed for a random number generator.
+     * @param noise            - The noise that shapes the ground. It must be thread safe.
+     */
+    public Terrain(GameObjectCollection gameObjects, int groundLayer, Vector2 windowDimensions, int seed,
+                   NoiseGenerator noise) {
         this.gameObjects = gameObjects;
         this.groundLayer = groundLayer;
+        Metrics.trackLayers(groundLayer, groundLayer + LAYER_DIFFERENCE);
         this.windowDimensions = windowDimensions;
-        this.seed = seed;
-        random = new Random(seed);
-        sinFactor = random.nextFloat() / NOISE_FACTOR;
-        piFactor = random.nextFloat() / NOISE_FACTOR;
+        worldRandom = new WorldRandom(seed);
+        this.noise = noise;
+        altitude = Block.SIZE * ALTITUDE_FACTOR;
         start_height = (int) (windowDimensions.y() * AVERAGE_HEIGHT_FACTOR);
+        heightCache = new HeightCache(this::groundHeightAt,
+                (int) (windowDimensions.x() / Block.SIZE) + 2 * CACHE_MARGIN_COLUMNS);
+        raster = new TerrainRaster(worldRandom, GROUND_PALETTE, COLLIDING_DEPTH, TERRAIN_DEPTH, CACHED_LOWER_TERRAINS);
     }
 
     /**
-     * This method return the ground height at a given location.
+     * This method return the ground height at a given location. It is a pure function of x, so it can be called
+     * from any thread.
      *
      * @param x - A number.
      * @return The ground height at the given location
      */
     public float groundHeightAt(float x) {
-        float height = (float) (start_height + (Block.SIZE * ALTITUDE_FACTOR * (Math.sin(sinFactor * x) +
-                Math.sin(piFactor * Math.PI * x))));
+        float height = (float) (start_height + altitude * noise.noiseAt(x));
         return (float) ((int) (height / Block.SIZE) * Block.SIZE);
     }
 
+    /**
+     * This method fills an array with the ground heights of consecutive columns, in a single pass over the noise
+     * and a single pass that turns noise into heights. It is a pure function, so it can be called from any thread.
+     *
+     * @param firstX - The x-value of the first column (a multiple of Block.SIZE).
+     * @param out    - The array to fill.
+     * @param count  - The number of columns.
+     */
+    public void groundHeightsInRange(int firstX, float[] out, int count) {
+        double[] noiseValues = new double[count];
+        noise.fill(firstX, Block.SIZE, noiseValues, 0, count);
+        for (int i = 0; i < count; i++) {
+            float height = (float) (start_height + altitude * noiseValues[i]);
+            out[i] = (int) (height / Block.SIZE) * Block.SIZE;
+        }
+    }
+
+    /*
+    Creates the classic two-sine noise, with frequencies drawn from the seed.
+     */
+    private static NoiseGenerator sineNoise(int seed) {
+        Random random = new Random(seed);
+        float sinFactor = random.nextFloat() / NOISE_FACTOR;
+        float piFactor = random.nextFloat() / NOISE_FACTOR;
+        return new SineNoise(sinFactor, piFactor * Math.PI);
+    }
+
+    /**
+     * @return The base height of the ground, in pixels from the top of the window, which the noise moves the ground
+     * up and down from. It follows the height of the window.
+     */
+    public int getBaseHeight() {
+        return start_height;
+    }
+
+    /**
+     * @return The cache of the column heights around the loaded window, to be queried by the game thread.
+     */
+    public HeightCache getHeightCache() {
+        return heightCache;
+    }
+
     /**
      * This method creates terrain in a given range of x-values.
      *
@@ -68,27 +142,158 @@ public class Terrain {
      * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
      */
     public void createInRange(int minX, int maxX) {
-        for (int i = minX; i < maxX; i += Block.SIZE) {
-            int startOfCol = (int) groundHeightAt((float) i);
-            createColumnOfDirt(i, startOfCol);
+        ChunkData data = new ChunkData(minX, (int) Math.ceil((double) (maxX - minX) / Block.SIZE));
+        describeColumns(data);
+        createFromData(data);
+    }
+
+    /**
+     * This method fills the terrain part of a chunk description: the ground height and top block colors of every
+     * column, and the baked image of everything beneath the top blocks. It does not touch the game, so it can run
+     * on any thread.
+     *
+     * @param data - The description to fill.
+     */
+    public void describeColumns(ChunkData data) {
+        float[] heights = new float[data.columns()];
+        groundHeightsInRange(data.columnX(0), heights, heights.length);
+        for (int c = 0; c < data.columns(); c++) {
+            data.setGroundHeight(c, (int) heights[c]);
+            for (int i = 0; i < COLLIDING_DEPTH; i++) {
+                data.setTopBlockColor(c, i, worldRandom.nextInt(data.columnX(c), WorldRandom.Purpose.TOP_BLOCK_COLOR, i,
+                        GROUND_PALETTE.size()));
+            }
         }
+        bakeLowerTerrain(data);
+    }
+
+    /**
+     * This method completes a chunk description whose columns are filled (by describeColumns, or read back from a
+     * ChunkStore) with the baked image of everything beneath the top blocks. It can run on any thread.
+     *
+     * @param data - The description to complete.
+     */
+    public void bakeLowerTerrain(ChunkData data) {
+        data.setLowerTerrain(raster.rasterOf(data));
+    }
+
+    /**
+     * This method creates the terrain of a prepared chunk description.
+     *
+     * @param data - A description filled by describeColumns.
+     */
+    public void createFromData(ChunkData data) {
+        for (int c = 0; c < data.columns(); c++) {
+            createColumnOfDirt(data, c);
+        }
+        GameObject lowerTerrain = lowerTerrainPool.acquire();
+        lowerTerrain.setDimensions(raster.dimensionsOf(data));
+        lowerTerrain.setTopLeftCorner(new Vector2(data.columnX(0), raster.topOf(data)));
+        lowerTerrain.renderer().setRenderable(data.lowerTerrain());
+        addToColumn(Math.floorDiv(data.columnX(0), Block.SIZE), lowerTerrain, groundLayer);
+    }
+
+    /**
+     * This method removes the terrain in a given range of x-values.
+     *
+     * @param minX - The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
+     * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
+     */
+    public void deleteInRange(int minX, int maxX) {
+        columnObjects.removeRange(Math.floorDiv(minX, Block.SIZE), Math.floorDiv(maxX - 1, Block.SIZE),
+                gameObjects, this::releaseToPool);
+    }
+
+    /**
+     * @return The index of the terrain objects by column, for range queries.
+     */
+    public ObjectMapping getColumnObjects() {
+        return columnObjects;
+    }
+
+    /**
+     * @return The pool of the colliding terrain blocks, for inspecting its statistics.
+     */
+    public ObjectPool<Block> getBlockPool() {
+        return blockPool;
+    }
+
+    /**
+     * @return The pool of the baked non-colliding chunk images, for inspecting its statistics.
+     */
+    public ObjectPool<GameObject> getLowerTerrainPool() {
+        return lowerTerrainPool;
+    }
+
+    /**
+     * @return The cache of the baked non-colliding chunk images.
+     */
+    public TerrainRaster getRaster() {
+        return raster;
     }
 
 
     /*
-    Creates a column if the ground starting from the (x, y) location on the screen.
-     */
-    private void createColumnOfDirt(int x, int y) {
-        for (int i = 0; i < TERRAIN_DEPTH; i++) {
-            Block block = new Block(new Vector2(x, y + i * Block.SIZE),
-                    new RectangleRenderable(ColorSupplier.approximateColor(BASE_GROUND_COLOR)));
-            if (i <= 1) {
-                gameObjects.addGameObject(block, groundLayer + LAYER_DIFFERENCE);
-            } else {
-                gameObjects.addGameObject(block, groundLayer);
-            }
-            block.setTag(TERRAIN_TAG);
+    Creates the top blocks of the given column, starting from its described ground height. The top blocks are created
+    as separate blocks (everything beneath them is part of the baked image of the range). The blocks are reused from
+    the pool, and indexed by their column.
+     */
+    private void createColumnOfDirt(ChunkData data, int c) {
+        int x = data.columnX(c);
+        int y = data.groundHeight(c);
+        int column = Math.floorDiv(x, Block.SIZE);
+        heightCache.put(column, y);
+        for (int i = 0; i < COLLIDING_DEPTH; i++) {
+            Block block = blockPool.acquire();
+            block.reset(new Vector2(x, y + i * Block.SIZE), GROUND_PALETTE.renderableAt(data.topBlockColor(c, i)));
+            addToColumn(column, block, layerOfDepth(i));
         }
     }
 
+    /*
+    Adds a terrain object to the game and to the column index.
+     */
+    private void addToColumn(int column, GameObject gameObject, int layer) {
+        gameObjects.addGameObject(gameObject, layer);
+        columnObjects.addObj(column, gameObject, layer);
+        Metrics.objectAdded(layer);
+    }
+
+    /*
+    Returns a terrain object that was removed from the game to its pool, according to its layer.
+     */
+    private void releaseToPool(GameObject gameObject, int layer) {
+        Metrics.objectRemoved(layer);
+        if (layer == groundLayer) {
+            lowerTerrainPool.release(gameObject);
+        } else {
+            blockPool.release((Block) gameObject);
+        }
+    }
+
+    /*
+    Allocates a colliding block, to be positioned when it is taken from the pool.
+     */
+    private static Block newBlock() {
+        Block block = new Block(Vector2.ZERO, null);
+        block.setTag(TERRAIN_TAG);
+        return block;
+    }
+
+    /*
+    Allocates the object of a baked non-colliding image, to be positioned and sized when it is taken from the pool.
+     */
+    private static GameObject newLowerTerrain() {
+        GameObject lowerTerrain = new GameObject(Vector2.ZERO, Vector2.ONES, null);
+        lowerTerrain.setTag(TERRAIN_TAG);
+        return lowerTerrain;
+    }
+
+    /*
+    Returns the layer of the object in the given depth of a column - only the top blocks collide.
+     */
+    private int layerOfDepth(int depth) {
+        return depth < COLLIDING_DEPTH ? groundLayer + LAYER_DIFFERENCE : groundLayer;
+    }
+
 }
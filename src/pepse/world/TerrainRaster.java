@@ -0,0 +1,136 @@
+package pepse.world;
+
+import danogl.gui.rendering.ImageRenderable;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.ColorPalette;
+import pepse.util.WorldRandom;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bakes the non-colliding part of the terrain of a chunk into a single image, with one pixel for every block, so the
+ * whole chunk is drawn as a single stretched image instead of an object per block. The colors of a column are drawn
+ * from the seed and the column's x-value only, so an image evicted from the cache is baked again identically.
+ * The most recently used images are cached, and the cache can be used from any thread.
+ */
+public class TerrainRaster {
+
+    private static final int TRANSPARENT = 0;
+
+    private final WorldRandom worldRandom;
+    private final ColorPalette palette;
+    private final int skippedDepth;
+    private final int depth;
+    private final Map<Long, Renderable> cache;
+
+    /**
+     * A constructor for a new TerrainRaster instance.
+     * @param worldRandom  - The randomness of the world.
+     * @param palette      - The palette of the ground colors.
+     * @param skippedDepth - The number of top blocks in a column that are not baked (the colliding blocks).
+     * @param depth        - The total number of blocks in a column.
+     * @param capacity     - The maximal number of cached images.
+     */
+    public TerrainRaster(WorldRandom worldRandom, ColorPalette palette, int skippedDepth, int depth, int capacity) {
+        this.worldRandom = worldRandom;
+        this.palette = palette;
+        this.skippedDepth = skippedDepth;
+        this.depth = depth;
+        cache = new LinkedHashMap<Long, Renderable>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Renderable> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * This method returns the baked image of the described range, from the cache or by baking it.
+     * @param data - A description whose ground heights are filled.
+     * @return A renderable to stretch over topOf and dimensionsOf the description.
+     */
+    public Renderable rasterOf(ChunkData data) {
+        long key = ((long) data.columnX(0) << Integer.SIZE) | data.columns();
+        synchronized (cache) {
+            Renderable raster = cache.get(key);
+            if (raster != null) {
+                return raster;
+            }
+        }
+        Renderable raster = new ImageRenderable(bake(data));
+        synchronized (cache) {
+            cache.put(key, raster);
+        }
+        return raster;
+    }
+
+    /**
+     * @param data - A description whose ground heights are filled.
+     * @return The y-value of the top of the baked image of the description.
+     */
+    public float topOf(ChunkData data) {
+        return highestGround(data) + skippedDepth * Block.SIZE;
+    }
+
+    /**
+     * @param data - A description whose ground heights are filled.
+     * @return The dimensions of the baked image of the description, in window coordinates.
+     */
+    public Vector2 dimensionsOf(ChunkData data) {
+        return new Vector2(data.columns() * Block.SIZE, rowsOf(data) * Block.SIZE);
+    }
+
+    /**
+     * @return The number of cached images.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /*
+    Draws every column of the description into an image, one pixel per block. Pixels above the top of a column are
+    transparent.
+     */
+    private BufferedImage bake(ChunkData data) {
+        int highestGround = highestGround(data);
+        BufferedImage image = new BufferedImage(data.columns(), rowsOf(data), BufferedImage.TYPE_INT_ARGB);
+        for (int c = 0; c < data.columns(); c++) {
+            int firstRow = (data.groundHeight(c) - highestGround) / Block.SIZE;
+            for (int row = 0; row < image.getHeight(); row++) {
+                boolean isGround = row >= firstRow && row < firstRow + depth - skippedDepth;
+                image.setRGB(c, row,
+                        isGround ? palette.colorAt(worldRandom.nextInt(data.columnX(c),
+                                WorldRandom.Purpose.LOWER_TERRAIN_COLOR, row, palette.size())).getRGB() :
+                                TRANSPARENT);
+            }
+        }
+        return image;
+    }
+
+    /*
+    Returns the number of block rows the image of the description spans.
+     */
+    private int rowsOf(ChunkData data) {
+        int lowestGround = data.groundHeight(0);
+        for (int c = 1; c < data.columns(); c++) {
+            lowestGround = Math.max(lowestGround, data.groundHeight(c));
+        }
+        return (lowestGround - highestGround(data)) / Block.SIZE + depth - skippedDepth;
+    }
+
+    /*
+    Returns the smallest ground height (the highest ground on screen) of the description.
+     */
+    private static int highestGround(ChunkData data) {
+        int highestGround = data.groundHeight(0);
+        for (int c = 1; c < data.columns(); c++) {
+            highestGround = Math.min(highestGround, data.groundHeight(c));
+        }
+        return highestGround;
+    }
+}
@@ -0,0 +1,119 @@
+package pepse.world;
+
+import pepse.util.Metrics;
+import pepse.util.Stage;
+import pepse.world.trees.Tree;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes chunk descriptions on a pool of worker threads ahead of time, so that the game thread only has to attach
+ * prepared data when a chunk is loaded. A chunk that was not prepared in time is computed on the calling thread.
+ */
+public class WorldGenerator {
+
+    private static final int WORKER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final String WORKER_NAME = "world-generator";
+
+    private final Terrain terrain;
+    private final Tree tree;
+    private final ChunkStore store;
+    private final ExecutorService workers;
+    private final Map<Integer, Future<ChunkData>> pendingChunks = new HashMap<>();
+
+    /**
+     * A constructor for a new WorldGenerator instance.
+     * @param terrain - Describes the terrain columns of a chunk.
+     * @param tree    - Describes the trees of a chunk.
+     * @param store   - Keeps the descriptions of generated chunks on disk, or null to always generate them.
+     */
+    public WorldGenerator(Terrain terrain, Tree tree, ChunkStore store) {
+        this.terrain = terrain;
+        this.tree = tree;
+        this.store = store;
+        workers = Executors.newFixedThreadPool(WORKER_THREADS, task -> {
+            Thread worker = new Thread(task, WORKER_NAME);
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    /**
+     * This method computes the description of a chunk, or reads it back from the store if it was generated before.
+     * It does not touch the game, so it can run on any thread.
+     * @param chunk - The index of the chunk.
+     * @return The description of the chunk.
+     */
+    public ChunkData generate(int chunk) {
+        long start = Metrics.start();
+        ChunkData data = new ChunkData(chunk * ChunkManager.CHUNK_WIDTH, ChunkManager.CHUNK_COLUMNS);
+        if (store != null && store.load(chunk, data)) {
+            terrain.bakeLowerTerrain(data);
+        } else {
+            terrain.describeColumns(data);
+            tree.describeTrees(data);
+            if (store != null) {
+                store.save(chunk, data);
+            }
+        }
+        Metrics.end(Stage.CHUNK_DESCRIPTION, start);
+        return data;
+    }
+
+    /**
+     * This method starts computing the description of a chunk in the background, unless it is already pending.
+     * @param chunk - The index of the chunk.
+     */
+    public void prefetch(int chunk) {
+        pendingChunks.computeIfAbsent(chunk, index -> workers.submit(() -> generate(index)));
+    }
+
+    /**
+     * This method returns the description of a chunk, waiting for it if it is being computed in the background,
+     * or computing it on the calling thread if it was never prefetched.
+     * @param chunk - The index of the chunk.
+     * @return The description of the chunk.
+     */
+    public ChunkData take(int chunk) {
+        Future<ChunkData> pending = pendingChunks.remove(chunk);
+        if (pending != null) {
+            try {
+                return pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // falls back to computing the chunk on this thread, which reports the failure if it repeats.
+            }
+        }
+        return generate(chunk);
+    }
+
+    /**
+     * This method drops every pending chunk outside the given range of chunk indices.
+     * @param firstChunk - The first chunk index to keep.
+     * @param lastChunk  - The last chunk index to keep.
+     */
+    public void discardOutside(int firstChunk, int lastChunk) {
+        Iterator<Map.Entry<Integer, Future<ChunkData>>> iterator = pendingChunks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Future<ChunkData>> entry = iterator.next();
+            if (entry.getKey() < firstChunk || entry.getKey() > lastChunk) {
+                entry.getValue().cancel(false);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * This method stops the worker threads.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
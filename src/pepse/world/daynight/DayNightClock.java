@@ -0,0 +1,93 @@
+package pepse.world.daynight;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+/**
+ * The single clock of the day/night cycle. It moves the sun and its halo and sets the opaqueness of the night from
+ * tables that are computed once for the whole cycle, so the three objects always stay in phase and a frame only
+ * costs a table lookup (and nothing at all while the lookup does not change). The clock can run faster or slower
+ * than real time, and can jump to any point of the cycle.
+ */
+public class DayNightClock {
+
+    private static final int TABLE_SIZE = 2048;
+    private static final float HALF = 0.5f;
+
+    private final GameObject sun;
+    private final GameObject sunHalo;
+    private final GameObject night;
+    private final float cycleLength;
+    private final Vector2[] sunTopLeft = new Vector2[TABLE_SIZE];
+    private final Vector2[] sunHaloTopLeft = new Vector2[TABLE_SIZE];
+    private final float[] nightOpacity = new float[TABLE_SIZE];
+    private float time = 0;
+    private float timeScale = 1;
+    private int appliedIndex = -1;
+
+    /**
+     * A constructor for a new DayNightClock instance, at the beginning of the cycle.
+     * @param sun              - The sun, created by Sun.
+     * @param sunHalo          - The halo of the sun, created by SunHalo.
+     * @param night            - The darkness of the night, created by Night.
+     * @param windowDimensions - The dimensions of the windows.
+     * @param cycleLength      - The amount of seconds a full day takes.
+     */
+    public DayNightClock(GameObject sun, GameObject sunHalo, GameObject night, Vector2 windowDimensions,
+                         float cycleLength) {
+        this.sun = sun;
+        this.sunHalo = sunHalo;
+        this.night = night;
+        this.cycleLength = cycleLength;
+        Vector2 sunOffset = sun.getDimensions().mult(-HALF);
+        Vector2 sunHaloOffset = sunHalo.getDimensions().mult(-HALF);
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            float phase = (float) i / TABLE_SIZE;
+            Vector2 center = Sun.centerAt(windowDimensions, phase);
+            sunTopLeft[i] = center.add(sunOffset);
+            sunHaloTopLeft[i] = center.add(sunHaloOffset);
+            nightOpacity[i] = Night.opacityAt(phase);
+        }
+        seek(0);
+    }
+
+    /**
+     * This method advances the clock. It is called once per frame.
+     * @param deltaTime - The real time that passed since the previous call, which is scaled by the time scale.
+     */
+    public void advance(float deltaTime) {
+        seek(time + deltaTime * timeScale);
+    }
+
+    /**
+     * This method jumps to a point of the cycle.
+     * @param time - The time in seconds since the beginning of a cycle (wrapped into the cycle).
+     */
+    public void seek(float time) {
+        this.time = time % cycleLength;
+        if (this.time < 0) {
+            this.time += cycleLength;
+        }
+        int index = Math.min((int) (this.time / cycleLength * TABLE_SIZE), TABLE_SIZE - 1);
+        if (index != appliedIndex) {
+            appliedIndex = index;
+            sun.setTopLeftCorner(sunTopLeft[index]);
+            sunHalo.setTopLeftCorner(sunHaloTopLeft[index]);
+            night.renderer().setOpaqueness(nightOpacity[index]);
+        }
+    }
+
+    /**
+     * @param timeScale - How many seconds of the cycle pass in a second of real time (0 stops the clock).
+     */
+    public void setTimeScale(float timeScale) {
+        this.timeScale = timeScale;
+    }
+
+    /**
+     * @return The time in seconds since the beginning of the current cycle.
+     */
+    public float getTime() {
+        return time;
+    }
+}
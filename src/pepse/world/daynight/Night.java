@@ -3,7 +3,6 @@ package pepse.world.daynight;
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.components.CoordinateSpace;
-import danogl.components.Transition;
 import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
 
@@ -17,32 +16,36 @@ public class Night {
     private static final float MIDNIGHT_OPACITY = 0.5f;
     private static final float MORNING_OPACITY = 0f;
     private static final String NIGHT_TAG = "night";
-    private static final int CYCLE_LENGTH_FACTOR = 2;
+    private static final int HALF_CYCLES = 2; // night falls in the first half of the cycle and lifts in the second
 
     /**
      * This function creates a black rectangular game object that covers the entire game window and changes its
-     * opaqueness in a cyclic manner, in order to resemble day-to-night transitions.
+     * opaqueness in a cyclic manner, in order to resemble day-to-night transitions. The opaqueness is set by a
+     * DayNightClock.
      *
      * @param gameObjects      - The collection of all participating game objects.
      * @param layer            - The number of the layer to which the created game object should be added.
      * @param windowDimensions - The dimensions of the windows.
-     * @param cycleLength      - The amount of seconds it should take the created game object to complete a full cycle.
      * @return A new game object representing day-to-night transitions.
      */
-    public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
-                                    float cycleLength) {
+    public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions) {
         GameObject night = new GameObject(Vector2.ZERO, windowDimensions, new RectangleRenderable(Color.BLACK));
         gameObjects.addGameObject(night, layer);
         night.setTag(NIGHT_TAG);
         night.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
-        new Transition<Float>(
-                night,
-                night.renderer()::setOpaqueness,
-                MORNING_OPACITY,
-                MIDNIGHT_OPACITY,
-                Transition.CUBIC_INTERPOLATOR_FLOAT,
-                cycleLength / CYCLE_LENGTH_FACTOR,
-                Transition.TransitionType.TRANSITION_BACK_AND_FORTH, null);
         return night;
     }
+
+    /**
+     * This function calculates the opaqueness of the night at a given point of the day: a cubic ease from morning
+     * to midnight in the first half of the cycle, and back in the second half.
+     *
+     * @param phase - The part of the cycle that passed, between 0 and 1.
+     * @return The opaqueness of the night.
+     */
+    static float opacityAt(float phase) {
+        float halfPhase = phase * HALF_CYCLES;
+        float t = halfPhase <= 1 ? halfPhase : HALF_CYCLES - halfPhase;
+        return MORNING_OPACITY + (MIDNIGHT_OPACITY - MORNING_OPACITY) * t * t * (3 - 2 * t);
+    }
 }
@@ -2,21 +2,17 @@ package pepse.world.daynight;
 
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.collisions.Layer;
 import danogl.components.CoordinateSpace;
-import danogl.components.Transition;
 import danogl.gui.rendering.OvalRenderable;
 import danogl.util.Vector2;
 
 import java.awt.*;
-import java.util.function.Consumer;
 
 /**
  * Represents the sun - moves across the sky in an elliptical path.
  */
 public class Sun {
-    private static final float INIT_ANGLE = 0f;
-    private static final float FINAL_ANGLE = 360f;
+    private static final float FULL_CIRCLE = 360f;
     private static final float RADIUS = 300f;
     private static final String SUN_TAG = "sun";
     private static final float PART_OF_WINDOW_SIZE = 0.5f;
@@ -26,33 +22,34 @@ public class Sun {
 
     /**
      * This function creates a yellow circle that moves in the sky in an elliptical path (in camera coordinates).
+     * The sun is moved by a DayNightClock.
      *
      * @param gameObjects      - The collection of all participating game objects.
      * @param layer            - The number of the layer to which the created sun should be added.
      * @param windowDimensions - The dimensions of the windows.
-     * @param cycleLength      - The amount of seconds it should take the created game object to complete a full cycle.
      * @return A new game object representing the sun.
      */
-    public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions,
-                                    float cycleLength) {
+    public static GameObject create(GameObjectCollection gameObjects, int layer, Vector2 windowDimensions) {
         GameObject sun = new GameObject(windowDimensions.mult(PART_OF_WINDOW_SIZE),
                                         Vector2.ONES.mult(SUN_SIZE), new OvalRenderable(Color.YELLOW));
         gameObjects.addGameObject(sun, layer);
         sun.setTag(SUN_TAG);
         sun.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
-        Consumer<Float> consumer = num -> sun.setCenter(calcSunPosition(windowDimensions, num,
-                getOvalRadius(num)));
-        new Transition<Float>(sun,
-                consumer,
-                INIT_ANGLE,
-                FINAL_ANGLE,
-                Transition.LINEAR_INTERPOLATOR_FLOAT,
-                cycleLength,
-                Transition.TransitionType.TRANSITION_LOOP,
-                null);
         return sun;
     }
 
+    /**
+     * This function calculates where the center of the sun is at a given point of the day.
+     *
+     * @param windowDimensions - The dimensions of the windows.
+     * @param phase            - The part of the cycle that passed, between 0 and 1.
+     * @return The center of the sun, in camera coordinates.
+     */
+    static Vector2 centerAt(Vector2 windowDimensions, float phase) {
+        float angleInSky = phase * FULL_CIRCLE;
+        return calcSunPosition(windowDimensions, angleInSky, getOvalRadius(angleInSky));
+    }
+
     //todo check how to make it ellipse
     /*
     Calculates ellipse route
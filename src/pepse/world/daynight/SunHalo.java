@@ -7,7 +7,6 @@ import danogl.gui.rendering.OvalRenderable;
 import danogl.util.Vector2;
 
 import java.awt.*;
-import java.util.function.Consumer;
 
 /**
  * Represents the halo of sun.
@@ -19,7 +18,7 @@ public class SunHalo {
 
     /**
      * This function creates a halo around a given object that represents the sun. The halo will be tied to the given
-     * sun, and will always move with it.
+     * sun by the DayNightClock that moves them both.
      *
      * @param gameObjects - The collection of all participating game objects.
      * @param layer       - The number of the layer to which the created halo should be added.
@@ -34,7 +33,6 @@ public class SunHalo {
         sunHalo.setTag(SUN_HALO_TAG);
         sunHalo.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         gameObjects.addGameObject(sunHalo, layer);
-        sunHalo.addComponent(deltaTime -> sunHalo.setCenter(sun.getCenter()));
         return sunHalo;
 
     }
@@ -0,0 +1,47 @@
+package pepse.world.trees;
+
+import danogl.GameObject;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.util.Vector2;
+import pepse.world.Block;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * The crown of a tree drawn as a single image, with one pixel for every leaf, stretched over the whole crown. A leaf
+ * that is currently a live Leaf object is cleared from the image, so the sprite and the live leaves never overlap.
+ */
+public class CrownSprite extends GameObject {
+
+    private static final Vector2 CROWN_DIMENSIONS = Vector2.ONES.mult(Foliage.CROWN_SIDE * Block.SIZE);
+    private static final int TRANSPARENT = 0;
+
+    private final BufferedImage image =
+            new BufferedImage(Foliage.CROWN_SIDE, Foliage.CROWN_SIDE, BufferedImage.TYPE_INT_ARGB);
+
+    /**
+     * A constructor for a new, empty CrownSprite instance, to be positioned when it is used.
+     */
+    public CrownSprite() {
+        super(Vector2.ZERO, CROWN_DIMENSIONS, null);
+        renderer().setRenderable(new ImageRenderable(image));
+    }
+
+    /**
+     * This method draws a leaf of the crown.
+     * @param slot  - The index of the leaf, row by row from the top-left corner of the crown.
+     * @param color - The color of the leaf.
+     */
+    public void showLeaf(int slot, Color color) {
+        image.setRGB(slot % Foliage.CROWN_SIDE, slot / Foliage.CROWN_SIDE, color.getRGB());
+    }
+
+    /**
+     * This method clears a leaf from the crown.
+     * @param slot - The index of the leaf, row by row from the top-left corner of the crown.
+     */
+    public void hideLeaf(int slot) {
+        image.setRGB(slot % Foliage.CROWN_SIDE, slot / Foliage.CROWN_SIDE, TRANSPARENT);
+    }
+}
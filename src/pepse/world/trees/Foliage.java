@@ -0,0 +1,345 @@
+package pepse.world.trees;
+
+import danogl.GameObject;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.util.Metrics;
+import pepse.util.Stage;
+import pepse.util.WorldRandom;
+import pepse.world.Block;
+import pepse.world.GroundContact;
+import pepse.world.LevelOfDetail;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * An alternative to Leaf objects that keeps the leaves of all loaded trees in primitive arrays (one entry per leaf
+ * in each array), and advances their sway, fall, rest on the ground and return to the tree in a single loop per
+ * frame. The whole foliage is a single game object whose renderable draws every leaf, so a leaf costs no game
+ * object, components or transitions. The leaves behave like Leaf objects and share their constants.
+ * Leaves are allocated in crowns of LEAVES_PER_CROWN, one crown per tree. The foliage is used by the game thread only.
+ */
+public class Foliage extends GameObject {
+
+    /**
+     * The number of leaves in a row (and in a column) of a crown.
+     */
+    public static final int CROWN_SIDE = 5;
+
+    /**
+     * The number of leaves in a crown.
+     */
+    public static final int LEAVES_PER_CROWN = CROWN_SIDE * CROWN_SIDE;
+
+    private static final int INITIAL_CROWNS = 64;
+    private static final int ALPHA_LEVELS = 64;
+    private static final byte ON_TREE = 0;
+    private static final byte FALLING = 1;
+    private static final byte ON_GROUND = 2;
+    private static final int CORNERS = 4;
+
+    private final GroundContact groundContact;
+    private final LevelOfDetail levelOfDetail;
+    private final WorldRandom worldRandom;
+    private final Color[][] shades; // by palette index and alpha level
+    private final int[] cornersX = new int[CORNERS];
+    private final int[] cornersY = new int[CORNERS];
+    private boolean[] crownLoaded = new boolean[INITIAL_CROWNS];
+    private int[] freeCrowns = new int[INITIAL_CROWNS];
+    private int freeCrownCount = 0;
+    private int crownCount = 0;
+    private int frameCount = 0;
+    private float[] crownSkippedTime = new float[INITIAL_CROWNS];
+    private int liveLeaves = 0;
+    private float[] homeX = new float[INITIAL_CROWNS * LEAVES_PER_CROWN];
+    private float[] homeY = new float[INITIAL_CROWNS * LEAVES_PER_CROWN];
+    private float[] x = new float[INITIAL_CROWNS * LEAVES_PER_CROWN];
+    private float[] y = new float[INITIAL_CROWNS * LEAVES_PER_CROWN];
+    private float[] swayTime = new float[INITIAL_CROWNS * LEAVES_PER_CROWN]; // negative until the sway starts
+    private float[] fallTime = new float[INITIAL_CROWNS * LEAVES_PER_CROWN];
+    private float[] stateTimeLeft = new float[INITIAL_CROWNS * LEAVES_PER_CROWN];
+    private byte[] state = new byte[INITIAL_CROWNS * LEAVES_PER_CROWN];
+    private byte[] paletteIndex = new byte[INITIAL_CROWNS * LEAVES_PER_CROWN];
+    private int[] cycle = new int[INITIAL_CROWNS * LEAVES_PER_CROWN]; // life cycles the leaf started
+    private float boundsMinX;
+    private float boundsMinY;
+
+    /**
+     * A constructor for a new Foliage instance. The foliage should be added to the game in the layer of the leaves.
+     * @param groundContact - Lands the falling leaves on the terrain.
+     * @param levelOfDetail - Decides how often every crown is simulated, by its distance from the camera.
+     * @param worldRandom - Draws the colors and timings of the leaves, by their positions on the trees.
+     */
+    public Foliage(GroundContact groundContact, LevelOfDetail levelOfDetail, WorldRandom worldRandom) {
+        super(Vector2.ZERO, Vector2.ONES, null);
+        this.groundContact = groundContact;
+        this.levelOfDetail = levelOfDetail;
+        this.worldRandom = worldRandom;
+        shades = new Color[Leaf.LEAF_PALETTE.size()][ALPHA_LEVELS];
+        for (int i = 0; i < shades.length; i++) {
+            Color color = Leaf.LEAF_PALETTE.colorAt(i);
+            for (int alpha = 0; alpha < ALPHA_LEVELS; alpha++) {
+                shades[i][alpha] = new Color(color.getRed(), color.getGreen(), color.getBlue(),
+                        alpha * 255 / (ALPHA_LEVELS - 1));
+            }
+        }
+        renderer().setRenderable(new FoliageRenderable());
+    }
+
+    /**
+     * This method adds the crown of a tree: a square of CROWN_SIDE by CROWN_SIDE leaves.
+     * @param left - The x-value of the left edge of the crown.
+     * @param top  - The y-value of the top edge of the crown.
+     * @return The index of the crown, to remove it with later.
+     */
+    public int addCrown(float left, float top) {
+        int crown;
+        if (freeCrownCount > 0) {
+            crown = freeCrowns[--freeCrownCount];
+        } else {
+            if (crownCount == crownLoaded.length) {
+                grow(crownCount * 2);
+            }
+            crown = crownCount++;
+        }
+        crownLoaded[crown] = true;
+        crownSkippedTime[crown] = 0;
+        int first = crown * LEAVES_PER_CROWN;
+        for (int i = 0; i < CROWN_SIDE; i++) {
+            for (int j = 0; j < CROWN_SIDE; j++) {
+                int leaf = first + i * CROWN_SIDE + j;
+                homeX[leaf] = left + Block.SIZE * j;
+                homeY[leaf] = top + Block.SIZE * i;
+                cycle[leaf] = 0;
+                returnToTree(leaf);
+            }
+        }
+        liveLeaves += LEAVES_PER_CROWN;
+        return crown;
+    }
+
+    /**
+     * This method removes the crown of a tree, together with its falling and resting leaves.
+     * @param crown - The index returned by addCrown.
+     */
+    public void removeCrown(int crown) {
+        crownLoaded[crown] = false;
+        freeCrowns[freeCrownCount++] = crown;
+        liveLeaves -= LEAVES_PER_CROWN;
+    }
+
+    /**
+     * @return The number of leaves of the loaded crowns.
+     */
+    public int liveLeafCount() {
+        return liveLeaves;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        long start = Metrics.start();
+        super.update(deltaTime);
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        frameCount++;
+        for (int crown = 0; crown < crownCount; crown++) {
+            if (!crownLoaded[crown]) {
+                continue;
+            }
+            float crownDeltaTime = crownDeltaTime(crown, deltaTime);
+            int end = (crown + 1) * LEAVES_PER_CROWN;
+            for (int leaf = crown * LEAVES_PER_CROWN; leaf < end; leaf++) {
+                if (crownDeltaTime > 0) {
+                    advance(leaf, crownDeltaTime);
+                }
+                minX = Math.min(minX, x[leaf]);
+                minY = Math.min(minY, y[leaf]);
+                maxX = Math.max(maxX, x[leaf]);
+                maxY = Math.max(maxY, y[leaf]);
+            }
+        }
+        if (liveLeaves > 0) {
+            float margin = Block.SIZE + Leaf.CHANGE_WIDTH_FACTOR;
+            boundsMinX = minX - Leaf.CHANGE_WIDTH_FACTOR;
+            boundsMinY = minY - Leaf.CHANGE_WIDTH_FACTOR;
+            setTopLeftCorner(new Vector2(boundsMinX, boundsMinY));
+            setDimensions(new Vector2(maxX + margin - boundsMinX, maxY + margin - boundsMinY));
+        }
+        Metrics.end(Stage.LEAF_UPDATE, start);
+    }
+
+    /*
+    Returns the time to advance the leaves of a crown by in this frame, according to the level of detail at the
+    crown's tree: the frame's time in full detail, the time accumulated over the last few frames once every few
+    frames in reduced detail (the crowns take turns, to spread the work), and 0 otherwise.
+     */
+    private float crownDeltaTime(int crown, float deltaTime) {
+        LevelOfDetail.Detail detail = levelOfDetail.detailAt(homeX[crown * LEAVES_PER_CROWN + CROWN_SIDE / 2]);
+        if (detail == LevelOfDetail.Detail.FROZEN) {
+            return 0;
+        }
+        crownSkippedTime[crown] += deltaTime;
+        if (detail == LevelOfDetail.Detail.REDUCED &&
+                (frameCount + crown) % LevelOfDetail.REDUCED_UPDATE_INTERVAL != 0) {
+            return 0;
+        }
+        float crownDeltaTime = crownSkippedTime[crown];
+        crownSkippedTime[crown] = 0;
+        return crownDeltaTime;
+    }
+
+    /*
+    Advances a single leaf by one frame: the sway of the leaves on the tree, the fall with its horizontal drift (which
+    stops at ground higher than a single step, like a Leaf), the landing on the ground, and the return to the tree
+    after the time on the ground.
+     */
+    private void advance(int leaf, float deltaTime) {
+        swayTime[leaf] += deltaTime;
+        switch (state[leaf]) {
+            case ON_TREE:
+                stateTimeLeft[leaf] -= deltaTime;
+                if (stateTimeLeft[leaf] <= 0) {
+                    state[leaf] = FALLING;
+                    fallTime[leaf] = 0;
+                }
+                break;
+            case FALLING:
+                fallTime[leaf] += deltaTime;
+                float nextX = x[leaf] + deltaTime * (Leaf.HORIZONTAL_LEAF_MOVEMENT_BOUND -
+                        2 * Leaf.HORIZONTAL_LEAF_MOVEMENT_BOUND *
+                        backAndForth(fallTime[leaf], Leaf.HORIZONTAL_TRANSITION_TIME));
+                y[leaf] += deltaTime * Leaf.FALLING_LEAF_VELOCITY;
+                if (!groundContact.isBlocked(nextX, Block.SIZE, y[leaf] + Block.SIZE)) {
+                    x[leaf] = nextX;
+                }
+                float ground = groundContact.groundUnder(x[leaf], Block.SIZE);
+                if (y[leaf] + Block.SIZE >= ground) {
+                    y[leaf] = ground - Block.SIZE;
+                    state[leaf] = ON_GROUND;
+                    stateTimeLeft[leaf] = (float) worldRandom.nextInt(leafKey(leaf),
+                            WorldRandom.Purpose.LEAF_TIME_ON_GROUND, cycle[leaf], Leaf.RANDOM_TIME_ON_GROUND_BOUND) +
+                            Leaf.FADEOUT_TIME;
+                }
+                break;
+            default:
+                fallTime[leaf] += deltaTime;
+                stateTimeLeft[leaf] -= deltaTime;
+                if (stateTimeLeft[leaf] <= 0) {
+                    cycle[leaf]++;
+                    returnToTree(leaf);
+                }
+        }
+    }
+
+    /*
+    Places a leaf back on its tree and starts a new life cycle, like a Leaf that is reset.
+     */
+    private void returnToTree(int leaf) {
+        x[leaf] = homeX[leaf];
+        y[leaf] = homeY[leaf];
+        state[leaf] = ON_TREE;
+        fallTime[leaf] = 0;
+        long key = leafKey(leaf);
+        swayTime[leaf] = -worldRandom.nextInt(key, WorldRandom.Purpose.LEAF_SHAKE_DELAY, cycle[leaf],
+                Leaf.SHAKE_DELAY_STEPS) * Leaf.SHAKE_DELAY_STEP;
+        stateTimeLeft[leaf] = (float) worldRandom.nextInt(key, WorldRandom.Purpose.LEAF_TIME_ON_TREE, cycle[leaf],
+                Leaf.RANDOM_TIME_ON_TREE_BOUND);
+        paletteIndex[leaf] = (byte) worldRandom.nextInt(key, WorldRandom.Purpose.LEAF_COLOR, cycle[leaf],
+                Leaf.LEAF_PALETTE.size());
+    }
+
+    /*
+    Returns the key the random values of a leaf are drawn by - its location on the tree, like a Leaf does.
+     */
+    private long leafKey(int leaf) {
+        return WorldRandom.locationKey(homeX[leaf], homeY[leaf]);
+    }
+
+    /*
+    Grows the arrays to hold the given number of crowns.
+     */
+    private void grow(int crowns) {
+        int leaves = crowns * LEAVES_PER_CROWN;
+        crownLoaded = Arrays.copyOf(crownLoaded, crowns);
+        freeCrowns = Arrays.copyOf(freeCrowns, crowns);
+        crownSkippedTime = Arrays.copyOf(crownSkippedTime, crowns);
+        homeX = Arrays.copyOf(homeX, leaves);
+        homeY = Arrays.copyOf(homeY, leaves);
+        x = Arrays.copyOf(x, leaves);
+        y = Arrays.copyOf(y, leaves);
+        swayTime = Arrays.copyOf(swayTime, leaves);
+        fallTime = Arrays.copyOf(fallTime, leaves);
+        stateTimeLeft = Arrays.copyOf(stateTimeLeft, leaves);
+        state = Arrays.copyOf(state, leaves);
+        paletteIndex = Arrays.copyOf(paletteIndex, leaves);
+        cycle = Arrays.copyOf(cycle, leaves);
+    }
+
+    /*
+    The value of a cubic back-and-forth transition from 0 to 1 and back, each way lasting the given period.
+     */
+    private static float backAndForth(float time, float period) {
+        float phase = (time / period) % 2f;
+        float t = phase <= 1f ? phase : 2f - phase;
+        return t * t * (3 - 2 * t);
+    }
+
+    /*
+    Draws every leaf of the loaded crowns as a rotated, translucent quad.
+     */
+    private class FoliageRenderable implements Renderable {
+
+        @Override
+        public void render(Graphics2D g, Vector2 topLeftCorner, Vector2 dimensions, double degreesCounterClockwise,
+                           boolean isFlippedHorizontally, boolean isFlippedVertically, double opaqueness) {
+            float offsetX = topLeftCorner.x() - boundsMinX;
+            float offsetY = topLeftCorner.y() - boundsMinY;
+            for (int crown = 0; crown < crownCount; crown++) {
+                if (!crownLoaded[crown]) {
+                    continue;
+                }
+                int end = (crown + 1) * LEAVES_PER_CROWN;
+                for (int leaf = crown * LEAVES_PER_CROWN; leaf < end; leaf++) {
+                    float opacity = state[leaf] == ON_TREE ? 1f :
+                            Math.max(0f, 1f - fallTime[leaf] / Leaf.FADEOUT_TIME);
+                    int alpha = (int) (opacity * opaqueness * (ALPHA_LEVELS - 1));
+                    if (alpha > 0) {
+                        drawLeaf(g, leaf, offsetX, offsetY, shades[paletteIndex[leaf]][alpha]);
+                    }
+                }
+            }
+        }
+
+        /*
+        Draws a single leaf, with the angle and width of its sway.
+         */
+        private void drawLeaf(Graphics2D g, int leaf, float offsetX, float offsetY, Color shade) {
+            float angle = 0;
+            float widthChange = 0;
+            if (swayTime[leaf] >= 0) {
+                angle = -Leaf.ANGLE_VALUE_FOR_TRANSITION_RANGE + 2 * Leaf.ANGLE_VALUE_FOR_TRANSITION_RANGE *
+                        backAndForth(swayTime[leaf], Leaf.ANGLE_CHANGE_TRANSITION_TIME);
+                widthChange = -Leaf.CHANGE_WIDTH_FACTOR + 2 * Leaf.CHANGE_WIDTH_FACTOR *
+                        backAndForth(swayTime[leaf], Leaf.CHANGE_WIDTH_TRANSITION_TIME);
+            }
+            float halfWidth = (Block.SIZE + widthChange) / 2;
+            float halfHeight = (Block.SIZE - widthChange) / 2;
+            float centerX = x[leaf] + offsetX + halfWidth;
+            float centerY = y[leaf] + offsetY + halfHeight;
+            double radians = Math.toRadians(angle);
+            float cos = (float) Math.cos(radians);
+            float sin = (float) Math.sin(radians);
+            for (int corner = 0; corner < CORNERS; corner++) {
+                float cornerX = (corner == 0 || corner == 3) ? -halfWidth : halfWidth;
+                float cornerY = corner < 2 ? -halfHeight : halfHeight;
+                cornersX[corner] = Math.round(centerX + cornerX * cos + cornerY * sin);
+                cornersY[corner] = Math.round(centerY - cornerX * sin + cornerY * cos);
+            }
+            g.setColor(shade);
+            g.fillPolygon(cornersX, cornersY, CORNERS);
+        }
+    }
+}
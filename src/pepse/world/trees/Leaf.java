@@ -1,41 +1,60 @@
 package pepse.world.trees;
 
-import danogl.GameObject;
-import danogl.collisions.Collision;
-import danogl.collisions.GameObjectCollection;
-import danogl.components.ScheduledTask;
+import danogl.components.Component;
 import danogl.components.Transition;
-import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
-import pepse.util.ColorSupplier;
+import pepse.util.ColorPalette;
+import pepse.util.Metrics;
+import pepse.util.Stage;
+import pepse.util.TimingWheel;
+import pepse.util.WorldRandom;
 import pepse.world.Block;
+import pepse.world.GroundContact;
+import pepse.world.LevelOfDetail;
 
 import java.awt.*;
-import java.util.Random;
+import java.util.ArrayList;
 
 /**
  * A class responsible for the creation and management of a leaf.
  */
 public class Leaf extends Block {
 
-    private static final int FADEOUT_TIME = 10;
+    static final int FADEOUT_TIME = 10;
     private static final Color LEAF_COLOR = new Color(50, 200, 30);
-    private static final Random random = new Random();
-    private static final int RANDOM_TIME_ON_TREE_BOUND = 120;
-    private static final int RANDOM_TIME_ON_GROUND_BOUND = 100;
-    private static final int FALLING_LEAF_VELOCITY = 50;
-    private static final float HORIZONTAL_LEAF_MOVEMENT_BOUND = 50f;
-    private static final float HORIZONTAL_TRANSITION_TIME = 1f;
-    private static final float ANGLE_VALUE_FOR_TRANSITION_RANGE = 5f;
-    private static final float ANGLE_CHANGE_TRANSITION_TIME = 0.5f;
-    private static final float CHANGE_WIDTH_FACTOR = 2f;
-    private static final float CHANGE_WIDTH_TRANSITION_TIME = 1f;
+    static final ColorPalette LEAF_PALETTE = ColorPalette.of(LEAF_COLOR);
+    static final int RANDOM_TIME_ON_TREE_BOUND = 120;
+    static final int RANDOM_TIME_ON_GROUND_BOUND = 100;
+    static final int FALLING_LEAF_VELOCITY = 50;
+    static final float HORIZONTAL_LEAF_MOVEMENT_BOUND = 50f;
+    static final float HORIZONTAL_TRANSITION_TIME = 1f;
+    static final float ANGLE_VALUE_FOR_TRANSITION_RANGE = 5f;
+    static final float ANGLE_CHANGE_TRANSITION_TIME = 0.5f;
+    static final float CHANGE_WIDTH_FACTOR = 2f;
+    static final float CHANGE_WIDTH_TRANSITION_TIME = 1f;
+    static final int SHAKE_DELAY_STEPS = 10;
+    static final float SHAKE_DELAY_STEP = 0.5f;
 
+    private static final Vector2 LEAF_DIMENSIONS = Vector2.ONES.mult(Block.SIZE);
+    private static final float FULL_OPACITY = 1f;
+    private static final float NO_OPACITY = 0f;
+
+    private final ArrayList<Component> lifecycleComponents = new ArrayList<>();
+    private final TimingWheel scheduler;
+    private final GroundContact groundContact;
+    private final LevelOfDetail levelOfDetail;
+    private final WorldRandom worldRandom;
+    private final TimingWheel.Timer shakeTimer = new TimingWheel.Timer(this::shakeInTheWindMovement);
+    private final TimingWheel.Timer fallTimer = new TimingWheel.Timer(this::startFallingSequence);
+    private final TimingWheel.Timer groundTimer = new TimingWheel.Timer(this::afterTimeOnGround);
     private float leafTimeOnTree;
     private float timeOnGround;
-    private Vector2 topLeftCorner;
-    private GameObjectCollection gameObjects;
-    private int layer;
+    private float shakeDelay;
+    private SingleTree owner;
+    private int paletteIndex;
+    private float skippedTime = 0;
+    private int skippedFrames = 0;
+    private boolean isFalling = false;
     private boolean isOnGround = false;
     private Transition<Float> horizontalTransition;
 
@@ -44,45 +63,131 @@ public class Leaf extends Block {
      *
      * @param topLeftCorner Position of the object, in window coordinates (pixels).
      *                      Note that (0,0) is the top-left corner of the window.
+     * @param scheduler     The world scheduler the leaf registers the deadlines of its life cycle with.
+     * @param groundContact Lands the leaf on the terrain when it falls.
+     * @param levelOfDetail Decides how often the leaf is simulated, by its distance from the camera.
+     * @param worldRandom   Draws the timings of the leaf's life cycles, by its position on the tree.
+     */
+    public Leaf(Vector2 topLeftCorner, TimingWheel scheduler, GroundContact groundContact,
+                LevelOfDetail levelOfDetail, WorldRandom worldRandom) {
+        super(topLeftCorner, LEAF_PALETTE.renderableAt(0));
+        this.scheduler = scheduler;
+        this.groundContact = groundContact;
+        this.levelOfDetail = levelOfDetail;
+        this.worldRandom = worldRandom;
+    }
+
+    /**
+     * Reinitializes the leaf so it starts a new life cycle on the tree, either when it is reused from a pool or
+     * when its previous life cycle is over. Every timer and transition of the previous cycle is removed.
+     * The life cycle of the leaf lasts only as long as its owning tree is loaded.
+     *
+     * @param topLeftCorner The position of the leaf on its tree, in window coordinates (pixels).
+     * @param owner         The tree the leaf belongs to.
+     * @param paletteIndex  The index of the leaf's color in the leaf palette.
+     * @param cycle         The number of the life cycle at this position on the tree, so that every cycle draws
+     *                      its own timings.
      */
-    public Leaf(Vector2 topLeftCorner, GameObjectCollection gameObjects, int layer) {
-        super(topLeftCorner, new RectangleRenderable(ColorSupplier.approximateColor(LEAF_COLOR)));
-        this.topLeftCorner = topLeftCorner;
-        this.gameObjects = gameObjects;
-        this.layer = layer;
-        leafTimeOnTree = (float) random.nextInt(RANDOM_TIME_ON_TREE_BOUND);
-        timeOnGround = (float) random.nextInt(RANDOM_TIME_ON_GROUND_BOUND) + FADEOUT_TIME;
+    public void reset(Vector2 topLeftCorner, SingleTree owner, int paletteIndex, int cycle) {
+        stopLifecycle();
+        this.owner = owner;
+        this.paletteIndex = paletteIndex;
+        reset(topLeftCorner, LEAF_PALETTE.renderableAt(paletteIndex));
+        setDimensions(LEAF_DIMENSIONS);
+        renderer().setRenderableAngle(0);
+        renderer().setOpaqueness(FULL_OPACITY);
+        isFalling = false;
+        isOnGround = false;
+        skippedTime = 0;
+        skippedFrames = 0;
+        long key = WorldRandom.locationKey(topLeftCorner.x(), topLeftCorner.y());
+        leafTimeOnTree = (float) worldRandom.nextInt(key, WorldRandom.Purpose.LEAF_TIME_ON_TREE, cycle,
+                RANDOM_TIME_ON_TREE_BOUND);
+        timeOnGround = (float) worldRandom.nextInt(key, WorldRandom.Purpose.LEAF_TIME_ON_GROUND, cycle,
+                RANDOM_TIME_ON_GROUND_BOUND) + FADEOUT_TIME;
+        shakeDelay = worldRandom.nextInt(key, WorldRandom.Purpose.LEAF_SHAKE_DELAY, cycle, SHAKE_DELAY_STEPS) *
+                SHAKE_DELAY_STEP;
         MakeLeafMove();
+    }
 
+    /**
+     * Reinitializes the leaf like reset, except that it starts falling from the tree right away.
+     *
+     * @param topLeftCorner The position the leaf falls from, in window coordinates (pixels).
+     * @param owner         The tree the leaf belongs to.
+     * @param paletteIndex  The index of the leaf's color in the leaf palette.
+     * @param cycle         The number of the life cycle at this position on the tree.
+     */
+    public void resetFalling(Vector2 topLeftCorner, SingleTree owner, int paletteIndex, int cycle) {
+        reset(topLeftCorner, owner, paletteIndex, cycle);
+        scheduler.cancel(fallTimer);
+        startFallingSequence();
+    }
 
+    /**
+     * @return true if the leaf is on its tree - neither falling nor resting on the ground.
+     */
+    public boolean isOnTree() {
+        return !isFalling && !isOnGround;
+    }
+
+    /**
+     * @return The index of the leaf's color in the leaf palette.
+     */
+    public int paletteIndex() {
+        return paletteIndex;
+    }
+
+    /**
+     * Stops the life cycle of the leaf: cancels its pending timers and removes its transitions. Called when the
+     * leaf is removed from the game, so it no longer fires deadlines.
+     */
+    public void stopLifecycle() {
+        scheduler.cancel(shakeTimer);
+        scheduler.cancel(fallTimer);
+        scheduler.cancel(groundTimer);
+        for (Component component : lifecycleComponents) {
+            removeComponent(component);
+        }
+        lifecycleComponents.clear();
+        horizontalTransition = null;
+        owner = null;
     }
 
     /*
-    This function creates a scheduled task that makes the leaf move and fall after some time.
+    This function schedules the timers that make the leaf move and fall after some time.
      */
     private void MakeLeafMove() {
-        new ScheduledTask(this,
-                (this.hashCode() % 10) * 0.5f,
-                false,
-                this::shakeInTheWindMovement);
-        new ScheduledTask(this, leafTimeOnTree, false, this::startFallingSequence);
+        scheduler.schedule(shakeTimer, shakeDelay);
+        scheduler.schedule(fallTimer, leafTimeOnTree);
     }
 
-    @Override
-    public void onCollisionEnter(GameObject other, Collision collision) {
-        super.onCollisionEnter(other, null);
+    /*
+    This function stops the leaf where it landed and starts counting its time on the ground.
+     */
+    private void land() {
         this.setVelocity(Vector2.ZERO);
         removeComponent(horizontalTransition);
+        isFalling = false;
         isOnGround = true;
-        new ScheduledTask(this, timeOnGround, false, this::afterTimeOnGround);
+        scheduler.schedule(groundTimer, timeOnGround);
     }
 
     /*
-    This function makes the leaf fall from the tree.
+    This function makes the leaf fall from the tree. The fade out is a transition of the leaf itself (and not the
+    renderer's fadeOut) so that it can be removed when the leaf is reset.
      */
     private void startFallingSequence() {
-        this.renderer().fadeOut(FADEOUT_TIME);
+        lifecycleComponents.add(new Transition<Float>(this,
+                renderer()::setOpaqueness,
+                FULL_OPACITY,
+                NO_OPACITY,
+                Transition.LINEAR_INTERPOLATOR_FLOAT,
+                FADEOUT_TIME,
+                Transition.TransitionType.TRANSITION_ONCE,
+                null));
         this.transform().setVelocityY(FALLING_LEAF_VELOCITY);
+        isFalling = true;
         horizontalTransition = new Transition<Float>(this,
                 transform()::setVelocityX,
                 HORIZONTAL_LEAF_MOVEMENT_BOUND,
@@ -91,14 +196,19 @@ public class Leaf extends Block {
                 HORIZONTAL_TRANSITION_TIME,
                 Transition.TransitionType.TRANSITION_BACK_AND_FORTH,
                 null);
+        lifecycleComponents.add(horizontalTransition);
     }
 
     /*
-    This function manages what to do when the leaf life cycle is over.
+    This function manages what to do when the leaf life cycle is over - the leaf returns to its tree (as a live leaf
+    or into the tree's sprite), unless the tree was unloaded in the meantime.
      */
     private void afterTimeOnGround() {
-        gameObjects.removeGameObject(this, layer);
-        gameObjects.addGameObject(new Leaf(topLeftCorner, gameObjects, layer), layer);
+        if (owner != null && owner.isLoaded()) {
+            owner.leafReturned(this);
+        } else {
+            stopLifecycle();
+        }
     }
 
     /*
@@ -106,29 +216,46 @@ public class Leaf extends Block {
     will shake in the wind.
      */
      private void shakeInTheWindMovement(){
-         new Transition<Float>(this,
+         lifecycleComponents.add(new Transition<Float>(this,
                  this.renderer()::setRenderableAngle,
                  this.renderer().getRenderableAngle() - ANGLE_VALUE_FOR_TRANSITION_RANGE,
                  this.renderer().getRenderableAngle() + ANGLE_VALUE_FOR_TRANSITION_RANGE,
                  Transition.CUBIC_INTERPOLATOR_FLOAT,
                  ANGLE_CHANGE_TRANSITION_TIME,
                  Transition.TransitionType.TRANSITION_BACK_AND_FORTH,
-                 null);
-         new Transition<Float>(this,
+                 null));
+         lifecycleComponents.add(new Transition<Float>(this,
                  num -> this.setDimensions(new Vector2(Block.SIZE + num, Block.SIZE - num)),
                  -CHANGE_WIDTH_FACTOR,
                  CHANGE_WIDTH_FACTOR,
                  Transition.CUBIC_INTERPOLATOR_FLOAT,
                  CHANGE_WIDTH_TRANSITION_TIME,
                  Transition.TransitionType.TRANSITION_BACK_AND_FORTH,
-                 null);
+                 null));
      }
 
     @Override
     public void update(float deltaTime) {
+        LevelOfDetail.Detail detail = levelOfDetail.detailAt(getTopLeftCorner().x());
+        if (detail == LevelOfDetail.Detail.FROZEN) {
+            return;
+        }
+        skippedTime += deltaTime;
+        if (detail == LevelOfDetail.Detail.REDUCED && ++skippedFrames < LevelOfDetail.REDUCED_UPDATE_INTERVAL) {
+            return;
+        }
+        deltaTime = skippedTime;
+        skippedTime = 0;
+        skippedFrames = 0;
+        long start = Metrics.start();
+        float previousLeft = getTopLeftCorner().x();
         super.update(deltaTime);
+        if (isFalling && groundContact.resolve(this, previousLeft)) {
+            land();
+        }
         if (isOnGround){
             this.setVelocity(Vector2.ZERO);
         }
+        Metrics.end(Stage.LEAF_UPDATE, start);
     }
 }
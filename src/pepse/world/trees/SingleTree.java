@@ -1,74 +1,326 @@
 package pepse.world.trees;
 
-import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.util.Metrics;
+import pepse.util.ObjectPool;
+import pepse.util.TimingWheel;
+import pepse.util.WorldRandom;
 import pepse.world.Block;
+import pepse.world.GroundContact;
+import pepse.world.LevelOfDetail;
 
 import java.awt.*;
-import java.lang.reflect.Array;
 import java.util.ArrayList;
-import java.util.Random;
 
 public class SingleTree {
-    private static final int MINIMAL_TREE_HEIGHT = 5;
     private static final Color STUMP_COLOR = new Color(100, 50, 20);
+    private static final Renderable STUMP_RENDERABLE = new RectangleRenderable(STUMP_COLOR);
     private static final String STUMP_TAG = "stump";
     private static final String LEAF_TAG = "leaf";
-    private static final int RANDOM_TREE_HEIGHT_BOND = 11;
 
     private final int stumpLayer;
     private final int leafLayer;
     private final GameObjectCollection gameObjects;
-    private final Random random;
-    private final ArrayList<GameObject> treesBlocks = new ArrayList<>();
+    private final ObjectPool<Block> stumpPool;
+    private final ObjectPool<Leaf> leafPool;
+    private final ObjectPool<CrownSprite> crownPool;
+    private final TimingWheel scheduler;
+    private final LevelOfDetail levelOfDetail;
+    private final ArrayList<Block> stumps = new ArrayList<>();
+    private final Leaf[] liveLeaves = new Leaf[Foliage.LEAVES_PER_CROWN]; // null while the leaf is in the sprite
+    private final int[] leafColors = new int[Foliage.LEAVES_PER_CROWN];
+    private final TimingWheel.Timer[] fallTimers = new TimingWheel.Timer[Foliage.LEAVES_PER_CROWN];
+    private final int[] leafCycles = new int[Foliage.LEAVES_PER_CROWN]; // life cycles each slot started
+    private final Foliage foliage;
+    private final WorldRandom worldRandom;
+    private CrownSprite crownSprite;
+    private float crownX;
+    private float crownY;
+    private float x;
+    private boolean isLoaded = false;
+    private boolean isNear = false;
+    private int crown;
 
-    public SingleTree(Random random, int stumpLayer, int leafLayer, GameObjectCollection gameObjects){
-        this.random = random;
+    public SingleTree(int stumpLayer, int leafLayer, GameObjectCollection gameObjects,
+                      ObjectPool<Block> stumpPool, ObjectPool<Leaf> leafPool, ObjectPool<CrownSprite> crownPool,
+                      TimingWheel scheduler, LevelOfDetail levelOfDetail, Foliage foliage,
+                      WorldRandom worldRandom){
         this.stumpLayer = stumpLayer;
         this.leafLayer = leafLayer;
         this.gameObjects = gameObjects;
+        this.stumpPool = stumpPool;
+        this.leafPool = leafPool;
+        this.crownPool = crownPool;
+        this.scheduler = scheduler;
+        this.levelOfDetail = levelOfDetail;
+        this.foliage = foliage;
+        this.worldRandom = worldRandom;
     }
 
     /**
-     * This function builds a complete tree (stump and leaves) in the startOfTree location.
-     * @param x
-     * @param startOfTree
-     */
-    public void buildTree(float x, float startOfTree) {
-        int treeHeight = MINIMAL_TREE_HEIGHT + random.nextInt(RANDOM_TREE_HEIGHT_BOND);
-        for (int i = 1; i <= treeHeight; i++) {
-            Block stump = new Block(new Vector2(x, startOfTree - Block.SIZE * i),
-                    new RectangleRenderable(STUMP_COLOR));
+     * @return A new stump block, to be positioned when it is taken from a pool.
+     */
+    static Block newStump() {
+        Block stump = new Block(Vector2.ZERO, STUMP_RENDERABLE);
+        stump.setTag(STUMP_TAG);
+        return stump;
+    }
+
+    /**
+     * @param scheduler - The world scheduler the leaf registers its deadlines with.
+     * @param groundContact - Lands the leaf on the terrain when it falls.
+     * @param levelOfDetail - Decides how often the leaf is simulated.
+     * @param worldRandom - Draws the timings of the leaf's life cycles.
+     * @return A new leaf, to be positioned when it is taken from a pool.
+     */
+    static Leaf newLeaf(TimingWheel scheduler, GroundContact groundContact, LevelOfDetail levelOfDetail,
+                        WorldRandom worldRandom) {
+        Leaf leaf = new Leaf(Vector2.ZERO, scheduler, groundContact, levelOfDetail, worldRandom);
+        leaf.setTag(LEAF_TAG);
+        return leaf;
+    }
+
+    /**
+     * @return A new crown sprite, to be positioned when it is taken from a pool.
+     */
+    static CrownSprite newCrownSprite() {
+        CrownSprite crownSprite = new CrownSprite();
+        crownSprite.setTag(LEAF_TAG);
+        return crownSprite;
+    }
+
+    /**
+     * This function builds a complete tree (stump and leaves) in the startOfTree location, by stamping the blueprint
+     * of its height there. The crown starts as a single sprite - a leaf becomes a live Leaf object when it falls, or
+     * when the tree is near the camera. A removed tree can be built again elsewhere: its stump list, leaf arrays and
+     * fall timers are reused.
+     * @param x - The x-value of the stump.
+     * @param startOfTree - The ground height the stump stands on.
+     * @param blueprint - The layout of the tree.
+     */
+    public void buildTree(float x, float startOfTree, TreeBlueprint blueprint) {
+        isLoaded = true;
+        this.x = x;
+        for (int i = 0; i < blueprint.height(); i++) {
+            Block stump = stumpPool.acquire();
+            stump.reset(x, startOfTree + blueprint.stumpOffsetY(i), STUMP_RENDERABLE);
             gameObjects.addGameObject(stump, stumpLayer);
-            treesBlocks.add(stump);
-            stump.setTag(STUMP_TAG);
+            Metrics.objectAdded(stumpLayer);
+            stumps.add(stump);
         }
-        Vector2 topLeftLeaf = new Vector2(x - 2 * Block.SIZE,
-                startOfTree - Block.SIZE * (treeHeight + 2));
-        for (int i = 0; i < 5; i++) {
-            for (int j = 0; j < 5; j++) {
-                Leaf leaf = new Leaf(new Vector2(topLeftLeaf.x() + Block.SIZE * j,
-                        topLeftLeaf.y() + Block.SIZE * i), gameObjects, leafLayer);
-                gameObjects.addGameObject(leaf, leafLayer);
-                treesBlocks.add(leaf);
-                leaf.setTag(LEAF_TAG);
+        crownX = x + blueprint.crownOffsetX();
+        crownY = startOfTree + blueprint.crownOffsetY();
+        if (foliage != null) {
+            crown = foliage.addCrown(crownX, crownY);
+            return;
+        }
+        crownSprite = crownPool.acquire();
+        crownSprite.transform().setTopLeftCorner(crownX, crownY);
+        for (int slot = 0; slot < Foliage.LEAVES_PER_CROWN; slot++) {
+            if (fallTimers[slot] == null) {
+                int fallingSlot = slot;
+                fallTimers[slot] = new TimingWheel.Timer(() -> startFall(fallingSlot));
+            }
+            leafCycles[slot] = 0;
+            showInSprite(slot, leafColor(slot));
+        }
+        gameObjects.addGameObject(crownSprite, leafLayer);
+        Metrics.objectAdded(leafLayer);
+    }
 
+    /**
+     * This function turns the crown into live swaying leaves when the tree comes near the camera, and folds the
+     * leaves that are still on the tree back into the sprite when it goes away. Leaves that are falling or resting on
+     * the ground finish their life cycle first. Changing nothing costs nothing.
+     * @param near - true if the tree is within the radius of live crowns around the camera.
+     */
+    public void setNear(boolean near) {
+        if (near == isNear || !isLoaded || foliage != null) {
+            return;
+        }
+        isNear = near;
+        for (int slot = 0; slot < Foliage.LEAVES_PER_CROWN; slot++) {
+            if (near && liveLeaves[slot] == null) {
+                promote(slot, false);
+            } else if (!near && liveLeaves[slot] != null && liveLeaves[slot].isOnTree()) {
+                foldBack(slot, liveLeaves[slot].paletteIndex());
             }
         }
+    }
 
+    /**
+     * This function is called by a live leaf of the tree when its time on the ground is over. Near the camera the
+     * leaf starts a new life cycle on the tree, and otherwise it folds back into the sprite.
+     * @param leaf - The leaf whose life cycle is over.
+     */
+    void leafReturned(Leaf leaf) {
+        for (int slot = 0; slot < Foliage.LEAVES_PER_CROWN; slot++) {
+            if (liveLeaves[slot] == leaf) {
+                leafCycles[slot]++;
+                if (isNear) {
+                    leaf.reset(slotPosition(slot), this, leafColor(slot), leafCycles[slot]);
+                } else {
+                    foldBack(slot, leafColor(slot));
+                }
+                return;
+            }
+        }
     }
 
     /**
-     *
+     * This function removes the tree from the game and returns its blocks to their pools.
      */
     public void removeTree(){
-        for (GameObject obj: treesBlocks) {
-            gameObjects.removeGameObject(obj, stumpLayer);
-            gameObjects.removeGameObject(obj, leafLayer);
+        if (foliage != null && isLoaded) {
+            foliage.removeCrown(crown);
+        }
+        isLoaded = false;
+        isNear = false;
+        for (Block stump: stumps) {
+            gameObjects.removeGameObject(stump, stumpLayer);
+            Metrics.objectRemoved(stumpLayer);
+            stumpPool.release(stump);
+        }
+        stumps.clear();
+        for (int slot = 0; slot < Foliage.LEAVES_PER_CROWN; slot++) {
+            if (fallTimers[slot] != null) {
+                scheduler.cancel(fallTimers[slot]);
+            }
+            if (liveLeaves[slot] != null) {
+                releaseLeaf(slot);
+            }
+        }
+        if (crownSprite != null) {
+            gameObjects.removeGameObject(crownSprite, leafLayer);
+            Metrics.objectRemoved(leafLayer);
+            crownPool.release(crownSprite);
+            crownSprite = null;
         }
     }
 
+    /**
+     * @return true if the tree is built and was not removed since.
+     */
+    public boolean isLoaded() {
+        return isLoaded;
+    }
 
+    /**
+     * @return The x-value of the stump.
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * @return The number of leaves of the tree, whether they are live or drawn in a sprite.
+     */
+    public int leafCount() {
+        return isLoaded ? Foliage.LEAVES_PER_CROWN : 0;
+    }
+
+    /**
+     * @return The number of leaves of the tree that are currently live Leaf objects.
+     */
+    public int liveLeafObjectCount() {
+        int count = 0;
+        for (Leaf leaf : liveLeaves) {
+            if (leaf != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+    Lets a leaf of the sprite fall. A tree that is frozen by the level of detail does not drop leaves (they would be
+    frozen in the air), so the fall is postponed instead.
+     */
+    private void startFall(int slot) {
+        if (levelOfDetail.detailAt(x) == LevelOfDetail.Detail.FROZEN) {
+            scheduleFall(slot);
+        } else {
+            promote(slot, true);
+        }
+    }
+
+    /*
+    Turns a leaf of the sprite into a live Leaf object - falling right away, or starting its life cycle on the tree.
+     */
+    private void promote(int slot, boolean falling) {
+        scheduler.cancel(fallTimers[slot]);
+        Leaf leaf = leafPool.acquire();
+        if (falling) {
+            leaf.resetFalling(slotPosition(slot), this, leafColors[slot], leafCycles[slot]);
+        } else {
+            leaf.reset(slotPosition(slot), this, leafColors[slot], leafCycles[slot]);
+        }
+        gameObjects.addGameObject(leaf, leafLayer);
+        Metrics.objectAdded(leafLayer);
+        liveLeaves[slot] = leaf;
+        crownSprite.hideLeaf(slot);
+    }
+
+    /*
+    Turns a live leaf back into a pixel of the sprite, with the given color.
+     */
+    private void foldBack(int slot, int paletteIndex) {
+        releaseLeaf(slot);
+        showInSprite(slot, paletteIndex);
+    }
+
+    /*
+    Draws a leaf in the sprite and schedules the time it falls from the tree.
+     */
+    private void showInSprite(int slot, int paletteIndex) {
+        leafColors[slot] = paletteIndex;
+        crownSprite.showLeaf(slot, Leaf.LEAF_PALETTE.colorAt(paletteIndex));
+        scheduleFall(slot);
+    }
+
+    /*
+    Schedules the time a leaf of the sprite falls from the tree.
+     */
+    private void scheduleFall(int slot) {
+        scheduler.schedule(fallTimers[slot], (float) worldRandom.nextInt(slotKey(slot),
+                WorldRandom.Purpose.LEAF_TIME_ON_TREE, leafCycles[slot], Leaf.RANDOM_TIME_ON_TREE_BOUND));
+    }
+
+    /*
+    Draws the color of a leaf for the current life cycle of its slot.
+     */
+    private int leafColor(int slot) {
+        return worldRandom.nextInt(slotKey(slot), WorldRandom.Purpose.LEAF_COLOR, leafCycles[slot],
+                Leaf.LEAF_PALETTE.size());
+    }
+
+    /*
+    Returns the key the random values of a leaf are drawn by - the location of its slot, like a Leaf does.
+     */
+    private long slotKey(int slot) {
+        return WorldRandom.locationKey(crownX + TreeBlueprint.slotOffsetX(slot),
+                crownY + TreeBlueprint.slotOffsetY(slot));
+    }
+
+    /*
+    Removes a live leaf from the game and returns it to its pool.
+     */
+    private void releaseLeaf(int slot) {
+        Leaf leaf = liveLeaves[slot];
+        gameObjects.removeGameObject(leaf, leafLayer);
+        Metrics.objectRemoved(leafLayer);
+        leaf.stopLifecycle();
+        leafPool.release(leaf);
+        liveLeaves[slot] = null;
+    }
+
+    /*
+    Returns the position of a leaf of the crown, by its index row by row from the top-left corner.
+     */
+    private Vector2 slotPosition(int slot) {
+        return new Vector2(crownX + TreeBlueprint.slotOffsetX(slot), crownY + TreeBlueprint.slotOffsetY(slot));
+    }
 }
@@ -5,15 +5,18 @@ import danogl.collisions.GameObjectCollection;
 import danogl.collisions.Layer;
 import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
+import pepse.util.Metrics;
+import pepse.util.ObjectPool;
+import pepse.util.TimingWheel;
+import pepse.util.WorldRandom;
 import pepse.world.Block;
+import pepse.world.ChunkData;
+import pepse.world.GroundContact;
+import pepse.world.HeightFunction;
+import pepse.world.LevelOfDetail;
 import pepse.world.Terrain;
 
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Random;
-import java.util.function.Function;
 
 /**
  * Responsible for the creation and management of trees.
@@ -25,30 +28,64 @@ public class Tree {
     private static final String LEAF_TAG = "leaf";
     private static final int RANDOM_TREE_HEIGHT_BOND = 11;
     private static final int RANDOM_BOND_TO_PLANT_TREE = 9;
+    private static final int MAX_POOLED_STUMPS = 1024;
+    private static final int MAX_POOLED_LEAVES = 2048;
+    private static final int MAX_POOLED_CROWNS = 128;
+    private static final int MAX_POOLED_TREES = 128;
 
     private final GameObjectCollection gameObjects;
-    private final Function<Float, Float> heightFunc;
+    private final HeightFunction heightFunc;
     private final int stumpLayer;
     private final int leafLayer;
-    private int seed;
-    private Random random;
-    private Map<Integer, SingleTree> treeMap = new HashMap<>();
+    private final WorldRandom worldRandom;
+    private final ObjectPool<SingleTree> treePool;
+    private final TreeRegistry registry;
+    private final ObjectPool<Block> stumpPool = new ObjectPool<>(SingleTree::newStump, MAX_POOLED_STUMPS);
+    private final ObjectPool<Leaf> leafPool;
+    private final ObjectPool<CrownSprite> crownPool =
+            new ObjectPool<>(SingleTree::newCrownSprite, MAX_POOLED_CROWNS);
+    private final TimingWheel scheduler;
+    private final float liveCrownRadius;
+    private final LevelOfDetail levelOfDetail;
+    private final Foliage foliage;
+    private final TreeBlueprint[] blueprints = new TreeBlueprint[RANDOM_TREE_HEIGHT_BOND]; // by height above minimal
 
     /**
      * A constructor to create a new Tree instance.
      * @param gameObjects - The collection of all participating game objects.
-     * @param heightFunc - A callback function used to calculate the ground height in a given location.
+     * @param heightFunc - A callback function used to calculate the ground height in a given location, for the
+     *                   trees created by createInRange.
      * @param stumpLayer - The layer to add the stump of the tree.
      * @param leafLayer - The layer to add the leaves of the tree.
-     * @param seed - The seed in which to create the random instance with.
+     * @param seed - The seed of the world, which decides where the trees grow and how their leaves behave.
+     * @param scheduler - The world scheduler the leaves register their deadlines with.
+     * @param groundContact - Lands the falling leaves on the terrain.
+     * @param foliage - The foliage engine to add the crowns to, or null to draw every crown as a sprite with live
+     *                Leaf objects on demand.
+     * @param liveCrownRadius - The distance from the camera within which the crowns are made of live leaves.
+     * @param levelOfDetail - Decides how often the leaves are simulated by their distance from the camera.
      */
-    public Tree(GameObjectCollection gameObjects, Function<Float, Float> heightFunc, int stumpLayer,
-                                                                            int leafLayer, int seed) {
+    public Tree(GameObjectCollection gameObjects, HeightFunction heightFunc, int stumpLayer,
+                int leafLayer, int seed, TimingWheel scheduler, GroundContact groundContact, Foliage foliage,
+                float liveCrownRadius, LevelOfDetail levelOfDetail) {
         this.gameObjects = gameObjects;
         this.heightFunc = heightFunc;
         this.stumpLayer = stumpLayer;
         this.leafLayer = leafLayer;
-        this.seed = seed;
+        Metrics.trackLayers(stumpLayer, leafLayer);
+        worldRandom = new WorldRandom(seed);
+        this.foliage = foliage;
+        this.scheduler = scheduler;
+        this.liveCrownRadius = liveCrownRadius;
+        this.levelOfDetail = levelOfDetail;
+        for (int i = 0; i < blueprints.length; i++) {
+            blueprints[i] = new TreeBlueprint(MINIMAL_TREE_HEIGHT + i);
+        }
+        leafPool = new ObjectPool<>(() -> SingleTree.newLeaf(scheduler, groundContact, levelOfDetail, worldRandom),
+                MAX_POOLED_LEAVES);
+        treePool = new ObjectPool<>(() -> new SingleTree(stumpLayer, leafLayer, gameObjects, stumpPool, leafPool,
+                crownPool, scheduler, levelOfDetail, foliage, worldRandom), MAX_POOLED_TREES);
+        registry = new TreeRegistry(treePool);
     }
 
     /**
@@ -57,24 +94,118 @@ public class Tree {
      * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
      */
     public void createInRange(int minX, int maxX) {
-        for (int i = minX; i < maxX; i += Block.SIZE) {
-            random = new Random(Objects.hash(i , seed));
-            if (random.nextInt(RANDOM_BOND_TO_PLANT_TREE) == 0) {
-                SingleTree newTree = new SingleTree(random, stumpLayer, leafLayer, gameObjects);
-                newTree.buildTree(i, heightFunc.apply((float)i));
-                treeMap.put(i, newTree);
+        ChunkData data = new ChunkData(minX, (int) Math.ceil((double) (maxX - minX) / Block.SIZE));
+        for (int c = 0; c < data.columns(); c++) {
+            data.setGroundHeight(c, (int) heightFunc.heightAt(data.columnX(c)));
+        }
+        describeTrees(data);
+        createFromData(data);
+    }
+
+    /**
+     * This method fills the tree part of a chunk description: which columns have a tree and how tall it is. Every
+     * tree stands on the ground height already in the description (filled by Terrain.describeColumns). It does not
+     * touch the game, so it can run on any thread.
+     * @param data - The description to fill, with its ground heights.
+     */
+    public void describeTrees(ChunkData data) {
+        for (int c = 0; c < data.columns(); c++) {
+            int x = data.columnX(c);
+            if (worldRandom.nextInt(x, WorldRandom.Purpose.TREE_PLACEMENT, 0, RANDOM_BOND_TO_PLANT_TREE) == 0) {
+                data.setTreeHeight(c, MINIMAL_TREE_HEIGHT +
+                        worldRandom.nextInt(x, WorldRandom.Purpose.TREE_HEIGHT, 0, RANDOM_TREE_HEIGHT_BOND));
+            } else {
+                data.setTreeHeight(c, 0);
             }
         }
     }
 
+    /**
+     * This method creates the trees of a prepared chunk description. Only the planted columns are visited, and every
+     * tree is taken from the pool of trees and stamped from the cached blueprint of its height.
+     * @param data - A description filled by describeTrees.
+     */
+    public void createFromData(ChunkData data) {
+        for (int c = data.nextTreeColumn(0); c >= 0; c = data.nextTreeColumn(c + 1)) {
+            SingleTree newTree = treePool.acquire();
+            newTree.buildTree(data.columnX(c), data.groundHeight(c), blueprintOf(data.treeHeight(c)));
+            registry.register(data.columnX(c), newTree);
+        }
+    }
+
+    /*
+    Returns the cached blueprint of the given height. Heights outside the generated range (a description filled by
+    hand) get a blueprint of their own.
+     */
+    private TreeBlueprint blueprintOf(int height) {
+        int index = height - MINIMAL_TREE_HEIGHT;
+        return index >= 0 && index < blueprints.length ? blueprints[index] : new TreeBlueprint(height);
+    }
+
+    /**
+     * This method removes the trees in a given range of x-values, together with all of their leaves.
+     * @param minX - The lower bound of the given range (will be rounded to a multiple of Block.SIZE).
+     * @param maxX - The upper bound of the given range (will be rounded to a multiple of Block.SIZE).
+     */
     public void deleteInRange(int minX, int maxX){
         for (int i = minX; i < maxX; i += Block.SIZE){
-            if (treeMap.containsKey(i)) {
-                treeMap.get(i).removeTree();
-            }
+            registry.unload(i);
+        }
+    }
+
+    /**
+     * This method makes the crowns of the trees near the camera live, and turns the crowns of the other trees
+     * into sprites. Only trees that crossed the radius since the last call change.
+     * @param centerX - The x-value of the center of the camera.
+     */
+    public void updateLiveCrowns(float centerX) {
+        for (SingleTree singleTree : registry.loadedTrees()) {
+            singleTree.setNear(Math.abs(singleTree.getX() - centerX) <= liveCrownRadius);
         }
     }
 
+    /**
+     * @return The distance from the camera within which the crowns are made of live leaves.
+     */
+    public float getLiveCrownRadius() {
+        return liveCrownRadius;
+    }
+
+    /**
+     * @return The registry of the loaded trees, for inspecting the live tree and leaf counts.
+     */
+    public TreeRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @return The pool of the trees, for inspecting its statistics.
+     */
+    public ObjectPool<SingleTree> getTreePool() {
+        return treePool;
+    }
+
+    /**
+     * @return The pool of the stump blocks, for inspecting its statistics.
+     */
+    public ObjectPool<Block> getStumpPool() {
+        return stumpPool;
+    }
+
+    /**
+     * @return The pool of the leaves, for inspecting its statistics.
+     */
+    public ObjectPool<Leaf> getLeafPool() {
+        return leafPool;
+    }
+
+    /**
+     * @return The pool of the crown sprites, for inspecting its statistics.
+     */
+    public ObjectPool<CrownSprite> getCrownPool() {
+        return crownPool;
+    }
+
 
 
 }
@@ -0,0 +1,86 @@
+package pepse.world.trees;
+
+import pepse.world.Block;
+
+/**
+ * The layout of a tree of a given height: the positions of its stump blocks and of the leaves of its crown, relative
+ * to the point where the stump meets the ground. A blueprint is computed once per height as plain coordinates, and
+ * building a tree only adds the offsets to that point, without allocating.
+ */
+public final class TreeBlueprint {
+
+    private static final int CROWN_MARGIN = 2; // blocks of crown to the left of the stump and above its top
+
+    private static final float[] SLOT_OFFSETS_X = new float[Foliage.LEAVES_PER_CROWN];
+    private static final float[] SLOT_OFFSETS_Y = new float[Foliage.LEAVES_PER_CROWN];
+
+    static {
+        for (int slot = 0; slot < Foliage.LEAVES_PER_CROWN; slot++) {
+            SLOT_OFFSETS_X[slot] = Block.SIZE * (slot % Foliage.CROWN_SIDE);
+            SLOT_OFFSETS_Y[slot] = Block.SIZE * (slot / Foliage.CROWN_SIDE);
+        }
+    }
+
+    private final float[] stumpOffsetsY; // the stump blocks are right above the foot
+    private final float crownOffsetX;
+    private final float crownOffsetY;
+
+    /**
+     * A constructor for the blueprint of a tree of the given height.
+     * @param height - The height of the stump in blocks.
+     */
+    public TreeBlueprint(int height) {
+        stumpOffsetsY = new float[height];
+        for (int i = 0; i < height; i++) {
+            stumpOffsetsY[i] = -Block.SIZE * (i + 1);
+        }
+        crownOffsetX = -CROWN_MARGIN * Block.SIZE;
+        crownOffsetY = -Block.SIZE * (height + CROWN_MARGIN);
+    }
+
+    /**
+     * @return The height of the stump in blocks.
+     */
+    public int height() {
+        return stumpOffsetsY.length;
+    }
+
+    /**
+     * @param block - The index of a stump block, from the ground up.
+     * @return The vertical offset of the top-left corner of the block from the foot of the stump. The block is
+     * right above the foot, so there is no horizontal offset.
+     */
+    public float stumpOffsetY(int block) {
+        return stumpOffsetsY[block];
+    }
+
+    /**
+     * @return The horizontal offset of the top-left corner of the crown from the foot of the stump.
+     */
+    public float crownOffsetX() {
+        return crownOffsetX;
+    }
+
+    /**
+     * @return The vertical offset of the top-left corner of the crown from the foot of the stump.
+     */
+    public float crownOffsetY() {
+        return crownOffsetY;
+    }
+
+    /**
+     * @param slot - The index of a leaf, row by row from the top-left corner of the crown.
+     * @return The horizontal offset of the leaf from the top-left corner of the crown.
+     */
+    static float slotOffsetX(int slot) {
+        return SLOT_OFFSETS_X[slot];
+    }
+
+    /**
+     * @param slot - The index of a leaf, row by row from the top-left corner of the crown.
+     * @return The vertical offset of the leaf from the top-left corner of the crown.
+     */
+    static float slotOffsetY(int slot) {
+        return SLOT_OFFSETS_Y[slot];
+    }
+}
@@ -0,0 +1,83 @@
+package pepse.world.trees;
+
+import pepse.util.ObjectPool;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the trees that are currently loaded in the game. A tree is registered when it is built and is
+ * evicted when it is unloaded, so the registry (and every leaf that belongs to a registered tree) only grows with the
+ * loaded part of the world, no matter how far the avatar travels. An evicted tree is returned to the pool of trees,
+ * to be built again elsewhere.
+ */
+public class TreeRegistry {
+
+    private final Map<Integer, SingleTree> loadedTrees = new HashMap<>();
+    private final ObjectPool<SingleTree> treePool;
+    private int liveLeafCount = 0;
+
+    /**
+     * A constructor for a new TreeRegistry instance.
+     * @param treePool - The pool the unloaded trees are returned to.
+     */
+    public TreeRegistry(ObjectPool<SingleTree> treePool) {
+        this.treePool = treePool;
+    }
+
+    /**
+     * This method registers a tree that was just built. A tree that is still loaded in the same location is
+     * unloaded first.
+     * @param x    - The x-value of the tree's stump.
+     * @param tree - The newly built tree.
+     */
+    public void register(int x, SingleTree tree) {
+        unload(x);
+        loadedTrees.put(x, tree);
+        liveLeafCount += tree.leafCount();
+    }
+
+    /**
+     * This method removes the tree in the given location (if there is one) from the game, together with all of
+     * its leaves, evicts it from the registry and returns it to the pool of trees.
+     * @param x - The x-value of the tree's stump.
+     */
+    public void unload(int x) {
+        SingleTree tree = loadedTrees.remove(x);
+        if (tree != null) {
+            liveLeafCount -= tree.leafCount();
+            tree.removeTree();
+            treePool.release(tree);
+        }
+    }
+
+    /**
+     * @param x - The x-value of a stump.
+     * @return true if a tree is loaded in the given location.
+     */
+    public boolean contains(int x) {
+        return loadedTrees.containsKey(x);
+    }
+
+    /**
+     * @return A read-through view of the loaded trees.
+     */
+    public Collection<SingleTree> loadedTrees() {
+        return loadedTrees.values();
+    }
+
+    /**
+     * @return The number of loaded trees.
+     */
+    public int liveTreeCount() {
+        return loadedTrees.size();
+    }
+
+    /**
+     * @return The number of leaves that belong to loaded trees.
+     */
+    public int liveLeafCount() {
+        return liveLeafCount;
+    }
+}